@@ -0,0 +1,61 @@
+package com.Packages.benchmarks;
+
+import com.Packages.model.Entity;
+import com.Packages.model.EntityEvent;
+import com.Packages.model.EntityMetadata;
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/** Fixed, representative payloads so runs are comparable across commits. */
+final class BenchmarkData {
+    static final String ID = "0f8fad5b-d9cb-469f-a165-70867728950e";
+    static final LocalDateTime TIME = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000);
+
+    private BenchmarkData() {
+    }
+
+    static Entity entity() {
+        return Entity.builder()
+                .id(ID)
+                .name("Name-0f8fad5b")
+                .createTime(TIME)
+                .modifiedTime(TIME)
+                .version(3L)
+                .build();
+    }
+
+    static EntityMetadata metadata() {
+        return EntityMetadata.builder()
+                .metaId("7c9e6679-7425-40de-944b-e07fc1f90ae7")
+                .entityId(ID)
+                .approach("Kafka Sync")
+                .operation("update")
+                .operationSeq(3L)
+                .mongoWriteMillis(1714566615123L)
+                .syncAttempt(0)
+                .mongoStatus("success")
+                .esStatus("pending")
+                .build();
+    }
+
+    static EntityEvent event() {
+        return EntityEvent.builder()
+                .entity(entity())
+                .operation("update")
+                .id(ID)
+                .index("entity")
+                .entityMetadata(metadata())
+                .build();
+    }
+
+    static Document changeDocument() {
+        Date time = new Date(1714566615123L);
+        return new Document("_id", ID)
+                .append("name", "Name-0f8fad5b")
+                .append("createTime", time)
+                .append("modifiedTime", time)
+                .append("version", 3L);
+    }
+}
@@ -0,0 +1,20 @@
+package com.Packages.benchmarks;
+
+import com.Packages.model.Entity;
+import com.Packages.service.ChangeDocumentMapper;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/** Change-stream document to Entity, including the Date to LocalDateTime zone conversion. */
+@State(Scope.Benchmark)
+public class ChangeDocumentMapperBenchmark {
+
+    private final Document doc = BenchmarkData.changeDocument();
+
+    @Benchmark
+    public Entity toEntity() {
+        return ChangeDocumentMapper.toEntity(doc);
+    }
+}
@@ -0,0 +1,53 @@
+package com.Packages.benchmarks;
+
+import com.Packages.model.Entity;
+import com.Packages.model.EntityEvent;
+import com.Packages.model.EntityMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+
+/**
+ * Per-request object construction on the write paths: the metadata record,
+ * the Kafka event wrapping it, and the random meta id.
+ */
+@State(Scope.Benchmark)
+public class EventBuildingBenchmark {
+
+    private final Entity entity = BenchmarkData.entity();
+
+    @Benchmark
+    public String randomMetaId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public EntityMetadata buildMetadata() {
+        return EntityMetadata.builder()
+                .metaId(UUID.randomUUID().toString())
+                .entityId(entity.getId())
+                .approach("Kafka Sync")
+                .operation("update")
+                .operationSeq(entity.getVersion())
+                .mongoWriteMillis(System.currentTimeMillis())
+                .esSyncMillis(null)
+                .syncAttempt(0)
+                .mongoStatus("success")
+                .esStatus("pending")
+                .dlqReason(null)
+                .build();
+    }
+
+    @Benchmark
+    public EntityEvent buildEvent() {
+        return EntityEvent.builder()
+                .entity(entity)
+                .operation("update")
+                .id(entity.getId())
+                .index("entity")
+                .entityMetadata(buildMetadata())
+                .build();
+    }
+}
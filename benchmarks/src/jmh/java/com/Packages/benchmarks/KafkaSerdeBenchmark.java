@@ -0,0 +1,81 @@
+package com.Packages.benchmarks;
+
+import com.Packages.kafka.EntityEventCodec;
+import com.Packages.kafka.EntityEventDeserializer;
+import com.Packages.kafka.EntityEventSerializer;
+import com.Packages.model.EntityEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value encoding of {@link EntityEvent}: Spring's JSON serde as configured
+ * today (without type headers) against the binary {@link EntityEventCodec}.
+ * Bytes per event for both formats are printed once per fork.
+ */
+@State(Scope.Benchmark)
+public class KafkaSerdeBenchmark {
+    private static final String TOPIC = "entity113";
+
+    private JsonSerializer<EntityEvent> jsonSerializer;
+    private JsonDeserializer<EntityEvent> jsonDeserializer;
+    private EntityEventSerializer binarySerializer;
+    private EntityEventDeserializer sniffingDeserializer;
+    private EntityEvent event;
+    private byte[] jsonPayload;
+    private byte[] binaryPayload;
+
+    @Setup
+    public void setup() {
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>(EntityEvent.class, false);
+        jsonDeserializer.addTrustedPackages("com.Packages.model");
+        binarySerializer = new EntityEventSerializer();
+        sniffingDeserializer = new EntityEventDeserializer();
+        sniffingDeserializer.configure(Map.of(
+                JsonDeserializer.VALUE_DEFAULT_TYPE, EntityEvent.class.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "com.Packages.model"), false);
+        event = BenchmarkData.event();
+        jsonPayload = jsonSerializer.serialize(TOPIC, event);
+        binaryPayload = binarySerializer.serialize(TOPIC, event);
+        System.out.printf("bytes/event: json=%d binary=%d%n", jsonPayload.length, binaryPayload.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jsonSerializer.close();
+        jsonDeserializer.close();
+        sniffingDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return jsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public EntityEvent deserialize() {
+        return jsonDeserializer.deserialize(TOPIC, jsonPayload);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return sniffingDeserializer.deserialize(TOPIC, binaryPayload);
+    }
+
+    @Benchmark
+    public Object sniffingJsonDeserialize() {
+        return sniffingDeserializer.deserialize(TOPIC, jsonPayload);
+    }
+}
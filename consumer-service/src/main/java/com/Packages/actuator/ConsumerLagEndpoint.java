@@ -0,0 +1,75 @@
+package com.Packages.actuator;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Actuator endpoint {@code consumerlag}: for every consumer group used by a
+ * listener in this service, the committed offset, log-end offset and lag of
+ * each partition, read through the admin client.
+ */
+@Component
+@Endpoint(id = "consumerlag")
+public class ConsumerLagEndpoint {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final KafkaAdmin kafkaAdmin;
+
+    public ConsumerLagEndpoint(KafkaListenerEndpointRegistry registry, KafkaAdmin kafkaAdmin) {
+        this.registry = registry;
+        this.kafkaAdmin = kafkaAdmin;
+    }
+
+    public record PartitionLag(long committed, long endOffset, long lag) { }
+
+    @ReadOperation
+    public Map<String, Map<String, PartitionLag>> lag() throws Exception {
+        TreeSet<String> groups = registry.getListenerContainers().stream()
+                .filter(MessageListenerContainer::isRunning)
+                .map(MessageListenerContainer::getGroupId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<String, Map<String, PartitionLag>> result = new TreeMap<>();
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            for (String group : groups) {
+                result.put(group, groupLag(admin, group));
+            }
+        }
+        return result;
+    }
+
+    private Map<String, PartitionLag> groupLag(AdminClient admin, String group) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+                .partitionsToOffsetAndMetadata()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Map<TopicPartition, ListOffsetsResultInfo> ends = admin.listOffsets(committed.keySet().stream()
+                        .collect(Collectors.toMap(Function.identity(), tp -> OffsetSpec.latest())))
+                .all()
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Map<String, PartitionLag> lag = new TreeMap<>();
+        committed.forEach((tp, offset) -> {
+            if (offset == null) {
+                return;
+            }
+            long end = ends.get(tp).offset();
+            lag.put(tp.toString(), new PartitionLag(offset.offset(), end, Math.max(0, end - offset.offset())));
+        });
+        return lag;
+    }
+}
@@ -0,0 +1,25 @@
+package com.Packages.actuator;
+
+import com.Packages.resilience.ElasticBackpressure;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code esbackpressure}: whether the listeners are paused
+ * because of the entity cluster, why, since when, and what the last probe saw.
+ */
+@Component
+@Endpoint(id = "esbackpressure")
+public class ElasticBackpressureEndpoint {
+    private final ElasticBackpressure backpressure;
+
+    public ElasticBackpressureEndpoint(ElasticBackpressure backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    @ReadOperation
+    public ElasticBackpressure.Snapshot state() {
+        return backpressure.getSnapshot();
+    }
+}
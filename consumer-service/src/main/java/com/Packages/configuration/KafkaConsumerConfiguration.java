@@ -0,0 +1,53 @@
+package com.Packages.configuration;
+
+import com.Packages.model.EntityEvent;
+import com.Packages.resilience.ElasticUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+public class KafkaConsumerConfiguration {
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EntityEvent> batchListenerContainerFactory(
+            ConsumerFactory<String, EntityEvent> consumerFactory,
+            DefaultErrorHandler errorHandler
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, EntityEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        // offsets are committed by the listener once the bulk response is processed
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    /**
+     * Records rejected because the ES circuit is open are redelivered without limit,
+     * one open interval apart; everything else keeps the default back-off.
+     * Boot applies this bean to the default listener factory as well.
+     */
+    @Bean
+    public DefaultErrorHandler errorHandler(@Value("${es.guard.open-ms:10000}") long openMs) {
+        DefaultErrorHandler handler = new DefaultErrorHandler();
+        handler.setBackOffFunction((record, ex) -> isElasticUnavailable(ex)
+                ? new FixedBackOff(openMs, FixedBackOff.UNLIMITED_ATTEMPTS)
+                : null);
+        return handler;
+    }
+
+    private static boolean isElasticUnavailable(Exception ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof ElasticUnavailableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,64 +1,76 @@
 package com.Packages.dlq;
 
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.Packages.metrics.SyncMetrics;
 import com.Packages.model.EntityEvent;
 import com.Packages.model.EntityMetadata;
 import com.Packages.repository.EntityElasticRepository;
-import com.Packages.repository.EntityMetadataRepository;
+import com.Packages.repository.MetadataWriter;
+import com.Packages.resilience.ElasticUnavailableException;
+import com.Packages.retry.RetryScheduler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
 @Service
 public class DLQConsumerKafkaSync {
-    private static final int MAX_RETRIES = 5;
-    private static final long MAX_BACKOFF_MS = 10L;
+    private static final String TOPIC = "dlq113";
 
-    private final ScheduledExecutorService scheduler =
-            Executors.newSingleThreadScheduledExecutor();
     private final EntityElasticRepository esRepo;
-    private final EntityMetadataRepository metaRepo;
+    private final MetadataWriter metaWriter;
     private final KafkaTemplate<String, EntityEvent> kafka;
+    private final RetryScheduler retries;
+    private final SyncMetrics metrics;
 
     public DLQConsumerKafkaSync(EntityElasticRepository esRepo,
-                                EntityMetadataRepository metaRepo,
-                                KafkaTemplate<String, EntityEvent> kafka) {
+                                MetadataWriter metaWriter,
+                                KafkaTemplate<String, EntityEvent> kafka,
+                                RetryScheduler retries,
+                                SyncMetrics metrics) {
         this.esRepo = esRepo;
-        this.metaRepo = metaRepo;
+        this.metaWriter = metaWriter;
         this.kafka = kafka;
+        this.retries = retries;
+        this.metrics = metrics;
+    }
+
+    @KafkaListener(topics = TOPIC, groupId = "dlq-consumer-group")
+    public void consumeDLQ(EntityEvent event,
+                           @Header(name = RetryScheduler.NOT_BEFORE_HEADER, required = false) byte[] notBefore) {
+        retries.awaitNotBefore(notBefore);
+        retry(event);
     }
 
-    @KafkaListener(topics = "dlq113", groupId = "dlq-consumer-group")
-    public void consumeDLQ(EntityEvent event) {
+    private void retry(EntityEvent event) {
         EntityMetadata meta = event.getEntityMetadata();
         int nextRetry = meta.getSyncAttempt() + 1;
         try {
-            switch (event.getOperation()) {
-                case "create" -> esRepo.createEntity(event.getIndex(), event.getEntity());
-                case "update" -> esRepo.updateEntity(
-                        event.getIndex(),
-                        event.getId(),
-                        event.getEntity(),
-                        event.getEntity().getCreateTime()
-                );
-                case "delete" -> esRepo.deleteEntity(event.getIndex(), event.getId());
-                default -> {
-                }
-            }
+            boolean applied = metrics.timeEsWrite(meta.getApproach(), event.getOperation(), () -> apply(event));
             meta.setSyncAttempt(nextRetry);
             meta.setEsStatus("success");
             meta.setEsSyncMillis(System.currentTimeMillis());
             meta.setDlqReason(null);
-            metaRepo.update(meta.getMetaId(), meta);
+            metaWriter.update(meta);
+            metrics.recordSynced(meta);
+            if (!applied) {
+                metrics.recordStale(meta);
+            }
+            metrics.recordRetry(meta, "success");
+        } catch (ElasticUnavailableException ex) {
+            throw ex;
         } catch (Exception ex) {
             handleRetryFailure(event, meta, nextRetry, ex);
         }
     }
 
+    // versioned, so a retry that arrives after a newer write is a no-op (false) instead of overwriting it
+    private boolean apply(EntityEvent event) {
+        String id = event.getOperation().equals("create") ? event.getEntity().getId() : event.getId();
+        return esRepo.writeVersioned(event.getIndex(), event.getOperation(), id, event.getEntity(),
+                event.getEntityMetadata().getOperationSeq());
+    }
+
     private void handleRetryFailure(EntityEvent event,
                                     EntityMetadata meta,
                                     int nextRetry,
@@ -75,7 +87,8 @@ public class DLQConsumerKafkaSync {
             meta.setEsStatus("failure");
             meta.setEsSyncMillis(null);
             meta.setDlqReason(reason);
-            metaRepo.update(meta.getMetaId(), meta);
+            metaWriter.update(meta);
+            metrics.recordRetry(meta, "failure");
             return;
         }
 
@@ -83,16 +96,12 @@ public class DLQConsumerKafkaSync {
         meta.setEsStatus("failure");
         meta.setEsSyncMillis(null);
         meta.setDlqReason(reason);
-        metaRepo.update(meta.getMetaId(), meta);
+        metaWriter.update(meta);
 
-        if (nextRetry <= MAX_RETRIES) {
-            long backoff = Math.min(1L << nextRetry, MAX_BACKOFF_MS);
-            scheduler.schedule(
-                    () -> kafka.send("dlq113", meta.getEntityId(), event),
-                    backoff,
-                    TimeUnit.MILLISECONDS
-            );
-        }
+        RetryScheduler.Outcome outcome = retries.schedule(ex, nextRetry,
+                () -> retry(event),
+                notBefore -> kafka.send(RetryScheduler.spillRecord(TOPIC, meta.getEntityId(), event, notBefore)));
+        metrics.recordRetry(meta, outcome.name().toLowerCase());
     }
 
     private boolean isClientError(Exception ex) {
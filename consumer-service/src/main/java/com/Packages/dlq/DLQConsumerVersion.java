@@ -7,25 +7,23 @@ import com.Packages.model.EntityMetadataversion;
 import com.Packages.repository.EntityElasticRepository;
 import com.Packages.repository.EntityMetadataRepository;
 import com.Packages.repository.EntityMongoRepository;
+import com.Packages.resilience.ElasticUnavailableException;
+import com.Packages.retry.RetryScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
 @Service
 public class DLQConsumerVersion {
-    private static final int MAX_RETRIES = 5;
-    private final ScheduledExecutorService scheduler =
-            Executors.newSingleThreadScheduledExecutor();
+    private static final String TOPIC = "dlq110";
     private final EntityMongoRepository               mongoRepo;
     private final EntityElasticRepository             elasticRepo;
     private final EntityMetadataRepository            metaRepo;
     private final KafkaTemplate<String, EntityEventVersion> kafkaTemplate;
+    private final RetryScheduler                      retries;
 
     @Autowired
     public DLQConsumerVersion(
@@ -33,16 +31,24 @@ public class DLQConsumerVersion {
             EntityElasticRepository elasticRepo,
             EntityMetadataRepository metaRepo,
             @Qualifier("entityEventVersionKafkaTemplate")
-            KafkaTemplate<String, EntityEventVersion> kafkaTemplate
+            KafkaTemplate<String, EntityEventVersion> kafkaTemplate,
+            RetryScheduler retries
     ) {
         this.mongoRepo      = mongoRepo;
         this.elasticRepo    = elasticRepo;
         this.metaRepo       = metaRepo;
         this.kafkaTemplate  = kafkaTemplate;
+        this.retries        = retries;
+    }
+
+    @KafkaListener(topics = TOPIC, groupId = "dlq-consumer-group")
+    public void consumeDLQ(EntityEventVersion event,
+                           @Header(name = RetryScheduler.NOT_BEFORE_HEADER, required = false) byte[] notBefore) {
+        retries.awaitNotBefore(notBefore);
+        retry(event);
     }
 
-    @KafkaListener(topics = "dlq110", groupId = "dlq-consumer-group")
-    public void consumeDLQ(EntityEventVersion event) {
+    private void retry(EntityEventVersion event) {
         EntityMetadataversion meta   = event.getEntityMetadataversion();
         String              metaId  = meta.getMetaId();
         int                 tries   = meta.getSyncAttempt();
@@ -73,6 +79,8 @@ public class DLQConsumerVersion {
             meta.setDlqReason(null);
             metaRepo.updateversion(metaId, meta);
 
+        } catch (ElasticUnavailableException ex) {
+            throw ex;
         } catch (ElasticsearchException ee) {
             int status = ee.status();
             String reason = ee.error().reason();
@@ -89,30 +97,27 @@ public class DLQConsumerVersion {
                 metaRepo.updateversion(metaId, meta);
                 return;
             }
-            scheduleRetry(event, meta, nextTry, reason);
+            scheduleRetry(event, meta, nextTry, reason, ee);
 
         } catch (Exception ex) {
-            scheduleRetry(event, meta, nextTry, ex.getMessage());
+            scheduleRetry(event, meta, nextTry, ex.getMessage(), ex);
         }
     }
 
     private void scheduleRetry(EntityEventVersion event,
                                EntityMetadataversion meta,
                                int nextTry,
-                               String reason) {
+                               String reason,
+                               Exception cause) {
         meta.setSyncAttempt(nextTry);
         meta.setEsStatus("failure");
         meta.setEsSyncMillis(null);
         meta.setDlqReason(reason);
         metaRepo.updateversion(meta.getMetaId(), meta);
 
-        if (nextTry > MAX_RETRIES) {
-            return;
-        }
-        long delaySec = Math.min(30, 1L << (nextTry - 1));
-        scheduler.schedule(() ->
-                        kafkaTemplate.send("dlq110", event.getEntityId(), event),
-                delaySec, TimeUnit.SECONDS
-        );
+        retries.schedule(cause, nextTry,
+                () -> retry(event),
+                notBefore -> kafkaTemplate.send(
+                        RetryScheduler.spillRecord(TOPIC, event.getEntityId(), event, notBefore)));
     }
 }
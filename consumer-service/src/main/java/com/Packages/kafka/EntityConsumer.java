@@ -1,79 +1,317 @@
 package com.Packages.kafka;
 
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.Packages.metrics.SyncMetrics;
 import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkOperation;
+import com.Packages.model.EntityBulkResult;
 import com.Packages.model.EntityEvent;
 import com.Packages.model.EntityMetadata;
 import com.Packages.repository.EntityElasticRepository;
-import com.Packages.repository.EntityMetadataRepository;
+import com.Packages.repository.MetadataWriter;
+import com.Packages.resilience.ElasticUnavailableException;
+import com.Packages.service.WriteCoalescer;
+import com.Packages.service.WriteCoalescer.Group;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
 @Service
 public class EntityConsumer {
+    // for events without metadata; everything else is tagged with its own approach
+    private static final String DEFAULT_APPROACH = "Kafka Sync";
 
     private final EntityElasticRepository esRepo;
-    private final EntityMetadataRepository metaRepo;
+    private final MetadataWriter metaWriter;
     private final KafkaTemplate<String, EntityEvent> kafka;
+    private final WriteCoalescer coalescer;
+    private final SyncMetrics metrics;
+    // batch mode only: one single-threaded worker per key shard, so an id's events are coalesced together
+    private final ExecutorService[] workers;
 
     public EntityConsumer(EntityElasticRepository esRepo,
-                          EntityMetadataRepository metaRepo,
-                          KafkaTemplate<String, EntityEvent> kafka) {
+                          MetadataWriter metaWriter,
+                          KafkaTemplate<String, EntityEvent> kafka,
+                          WriteCoalescer coalescer,
+                          SyncMetrics metrics,
+                          @Value("${entity.consumer.batch.workers:1}") int workerCount) {
         this.esRepo = esRepo;
-        this.metaRepo = metaRepo;
+        this.metaWriter = metaWriter;
         this.kafka = kafka;
+        this.coalescer = coalescer;
+        this.metrics = metrics;
+        this.workers = new ExecutorService[workerCount > 1 ? workerCount : 0];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = Executors.newSingleThreadExecutor();
+        }
     }
 
-    @KafkaListener(topics = "entity113", groupId = "es-consumer-group")
+    @PreDestroy
+    void stop() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    @KafkaListener(topics = "entity113", groupId = "es-consumer-group",
+            concurrency = "${entity.consumer.concurrency:1}",
+            autoStartup = "#{!${entity.consumer.batch.enabled:false}}")
     public void consume(EntityEvent event) {
         EntityMetadata meta = event.getEntityMetadata();
         try {
-            applyOperation(event);
+            boolean applied = metrics.timeEsWrite(meta.getApproach(), event.getOperation(),
+                    () -> applyOperation(event));
             markSuccess(meta);
-            metaRepo.update(meta.getMetaId(), meta);
+            if (!applied) {
+                metrics.recordStale(meta);
+            }
+            metaWriter.update(meta);
+        } catch (ElasticUnavailableException ex) {
+            // circuit open: leave the record to the error handler's back-off instead of the DLQ
+            throw ex;
         } catch (Exception ex) {
             handleFailure(event, meta, ex);
         }
     }
 
-    private void applyOperation(EntityEvent event) {
+    /**
+     * Batch mode: one poll's worth of records becomes a single _bulk request.
+     * Each response item is routed back to its own record, so metadata and
+     * DLQ handling stay per event; offsets are committed afterwards.
+     * With sync.coalesce.enabled, operations on the same id within the poll
+     * are collapsed into the newest one before the bulk request is built.
+     * With entity.consumer.batch.workers > 1 the poll is split by entity id
+     * across the workers and each shard is sent as its own bulk request.
+     */
+    @KafkaListener(topics = "entity113", groupId = "es-consumer-group",
+            containerFactory = "batchListenerContainerFactory",
+            concurrency = "${entity.consumer.concurrency:1}",
+            autoStartup = "${entity.consumer.batch.enabled:false}",
+            properties = "max.poll.records=${entity.consumer.batch.max-records:500}")
+    public void consumeBatch(List<ConsumerRecord<String, EntityEvent>> records,
+                             Acknowledgment ack) throws Exception {
+        List<EntityEvent> events = new ArrayList<>(records.size());
+        List<EntityBulkOperation> ops = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, EntityEvent> record : records) {
+            EntityEvent event = record.value();
+            try {
+                ops.add(toBulkOperation(event));
+                events.add(event);
+            } catch (Exception ex) {
+                handleFailure(event, event.getEntityMetadata(), ex);
+            }
+        }
+        try {
+            if (workers.length == 0) {
+                applyShardOrDlq(events, ops);
+            } else {
+                applySharded(events, ops);
+            }
+        } catch (ElasticUnavailableException ex) {
+            // redeliver the whole poll once ES is back; records already applied are idempotent
+            throw new BatchListenerFailedException("Elasticsearch unavailable", ex, 0);
+        }
+        ack.acknowledge();
+    }
+
+    // only an open circuit fails the poll (no ack, redelivered by the container); other
+    // shard failures are routed to the DLQ per record by applyShardOrDlq
+    private void applySharded(List<EntityEvent> events, List<EntityBulkOperation> ops) throws Exception {
+        Map<Integer, List<Integer>> shards = new LinkedHashMap<>();
+        for (int i = 0; i < ops.size(); i++) {
+            int shard = Math.floorMod(ops.get(i).getId().hashCode(), workers.length);
+            shards.computeIfAbsent(shard, k -> new ArrayList<>()).add(i);
+        }
+        List<Future<?>> pending = new ArrayList<>(shards.size());
+        for (Map.Entry<Integer, List<Integer>> shard : shards.entrySet()) {
+            List<EntityEvent> shardEvents = shard.getValue().stream().map(events::get).toList();
+            List<EntityBulkOperation> shardOps = shard.getValue().stream().map(ops::get).toList();
+            pending.add(workers[shard.getKey()].submit(() -> applyShardOrDlq(shardEvents, shardOps)));
+        }
+        for (Future<?> f : pending) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ElasticUnavailableException unavailable) {
+                    throw unavailable;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Rethrowing anything else would make the error handler replay the whole poll,
+     * shards that succeeded included, and finally skip it without a DLQ. Instead the
+     * shard's records go to the DLQ; records already applied are harmless there
+     * because the writes are versioned.
+     */
+    private void applyShardOrDlq(List<EntityEvent> events, List<EntityBulkOperation> ops) {
+        try {
+            applyShard(events, ops);
+        } catch (ElasticUnavailableException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            for (EntityEvent event : events) {
+                handleFailure(event, event.getEntityMetadata(), reasonOf(ex), false);
+            }
+        }
+    }
+
+    private void applyShard(List<EntityEvent> events, List<EntityBulkOperation> ops) {
+        if (ops.isEmpty()) {
+            return;
+        }
+        List<Group<Integer>> groups = coalescer.coalesce(
+                IntStream.range(0, ops.size()).boxed().toList(),
+                i -> ops.get(i).getId(),
+                i -> ops.get(i).getOperation(),
+                i -> operationSeq(events.get(i)));
+        // Kafka and Hybrid events share the topic; one bulk per approach keeps sync.es.write per approach
+        Map<String, List<Group<Integer>>> byApproach = new LinkedHashMap<>();
+        for (Group<Integer> group : groups) {
+            byApproach.computeIfAbsent(approachOf(events.get(group.winner())), k -> new ArrayList<>()).add(group);
+        }
+        for (Map.Entry<String, List<Group<Integer>>> approach : byApproach.entrySet()) {
+            applyBulk(approach.getKey(), events, ops, approach.getValue());
+        }
+    }
+
+    private static String approachOf(EntityEvent event) {
+        EntityMetadata meta = event.getEntityMetadata();
+        return meta != null && meta.getApproach() != null ? meta.getApproach() : DEFAULT_APPROACH;
+    }
+
+    private void applyBulk(String approach,
+                           List<EntityEvent> events,
+                           List<EntityBulkOperation> ops,
+                           List<Group<Integer>> groups) {
+        List<EntityBulkOperation> winners = new ArrayList<>(groups.size());
+        for (Group<Integer> group : groups) {
+            winners.add(ops.get(group.winner()));
+        }
+
+        List<EntityBulkResult> results;
+        long start = System.nanoTime();
+        try {
+            results = esRepo.bulkWrite(winners);
+            metrics.recordEsBulk(approach, System.nanoTime() - start, true);
+        } catch (ElasticUnavailableException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            metrics.recordEsBulk(approach, System.nanoTime() - start, false);
+            for (Group<Integer> group : groups) {
+                for (int i : group.members()) {
+                    EntityEvent event = events.get(i);
+                    boolean superseded = i != group.winner();
+                    handleFailure(event, event.getEntityMetadata(), reasonOf(ex),
+                            superseded || isClientError(ex));
+                }
+            }
+            return;
+        }
+        for (int g = 0; g < groups.size(); g++) {
+            Group<Integer> group = groups.get(g);
+            EntityBulkResult result = results.get(g);
+            for (int i : group.members()) {
+                EntityEvent event = events.get(i);
+                EntityMetadata meta = event.getEntityMetadata();
+                if (result.isSuccess()) {
+                    markSuccess(meta);
+                    if (result.isVersionConflict() && i == group.winner()) {
+                        metrics.recordStale(meta);
+                    }
+                    metaWriter.update(meta);
+                } else {
+                    // only the winner goes to the DLQ; its replay carries the final state
+                    boolean superseded = i != group.winner();
+                    handleFailure(event, meta, result.getReason(),
+                            superseded || result.isClientError());
+                }
+            }
+        }
+    }
+
+    private long operationSeq(EntityEvent event) {
+        Long seq = event.getEntityMetadata().getOperationSeq();
+        return seq != null ? seq : 0L;
+    }
+
+    // versioned: a redelivered or out-of-order event older than what ES has is a no-op (false)
+    private boolean applyOperation(EntityEvent event) {
         String op = event.getOperation();
-        String idx = event.getIndex();
-        String id = event.getId();
         Entity ent = event.getEntity();
-        switch (op) {
-            case "create" -> esRepo.createEntity(idx, ent);
-            case "update" -> esRepo.updateEntity(idx, id, ent, ent.getCreateTime());
-            case "delete" -> esRepo.deleteEntity(idx, id);
-            default -> throw new IllegalArgumentException("Unknown operation: " + op);
+        String id = op.equals("create") ? ent.getId() : event.getId();
+        return esRepo.writeVersioned(event.getIndex(), op, id, ent, event.getEntityMetadata().getOperationSeq());
+    }
+
+    private EntityBulkOperation toBulkOperation(EntityEvent event) {
+        String op = event.getOperation();
+        if (!op.equals("create") && !op.equals("update") && !op.equals("delete")) {
+            throw new IllegalArgumentException("Unknown operation: " + op);
         }
+        String id = op.equals("create") ? event.getEntity().getId() : event.getId();
+        return EntityBulkOperation.builder()
+                .operation(op)
+                .index(event.getIndex())
+                .id(id)
+                .entity(event.getEntity())
+                .version(event.getEntityMetadata().getOperationSeq())
+                .build();
     }
 
     private void markSuccess(EntityMetadata meta) {
         meta.setEsSyncMillis(System.currentTimeMillis());
         meta.setEsStatus("success");
         meta.setSyncAttempt(1);
+        metrics.recordSynced(meta);
     }
 
     private void handleFailure(EntityEvent event, EntityMetadata meta, Exception ex) {
+        handleFailure(event, meta, reasonOf(ex), isClientError(ex));
+    }
+
+    private String reasonOf(Exception ex) {
+        return (ex instanceof ElasticsearchException ee)
+                ? ee.error().reason()
+                : ex.getMessage();
+    }
+
+    private boolean isClientError(Exception ex) {
+        return ex instanceof ElasticsearchException ee
+                && ee.status() >= 400 && ee.status() < 500;
+    }
+
+    private void handleFailure(EntityEvent event, EntityMetadata meta, String reason, boolean clientError) {
         if (meta.getFirstFailureTime() == null) {
             meta.setFirstFailureTime(System.currentTimeMillis());
         }
-        String reason = (ex instanceof ElasticsearchException ee)
-                ? ee.error().reason()
-                : ex.getMessage();
         meta.setDlqReason(reason);
 
-        if (ex instanceof ElasticsearchException ee
-                && ee.status() >= 400 && ee.status() < 500) {
+        if (clientError) {
             markFailure(meta);
-            metaRepo.update(meta.getMetaId(), meta);
+            metaWriter.update(meta);
             return;
         }
 
         markFailure(meta);
-        metaRepo.update(meta.getMetaId(), meta);
+        metaWriter.update(meta);
+        metrics.recordDlq(meta);
         sendToDLQ(event);
     }
 
@@ -34,7 +34,8 @@ public class VersionedEntityConsumer {
         this.metaRepo       = metaRepo;
         this.kafkaTemplate  = kafkaTemplate;
     }
-    @KafkaListener(topics = "entity108", groupId = "es-consumer-group")
+    @KafkaListener(topics = "entity108", groupId = "es-consumer-group",
+            concurrency = "${entity.consumer.concurrency:1}")
     public void onEntityEvent(EntityEventVersion event) {
         EntityMetadataversion meta    = event.getEntityMetadataversion();
         String                 metaId  = meta.getMetaId();
@@ -0,0 +1,181 @@
+package com.Packages.resilience;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch.cat.thread_pool.ThreadPoolRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer backpressure tied to the health of the entity cluster.
+ * <p>
+ * Every probe interval the cluster health and the write thread pool of the
+ * entity cluster are read directly (not through {@link ElasticGuard}, so the
+ * probe still runs while the circuit is open). All listener containers are
+ * paused when any of these holds:
+ * <ul>
+ *   <li>the ES circuit is open,</li>
+ *   <li>the guard's failure rate reaches {@code error-rate-threshold},</li>
+ *   <li>the write pool rejected at least {@code rejection-threshold} tasks since the last probe,</li>
+ *   <li>the cluster is red or the probe itself fails.</li>
+ * </ul>
+ * They are resumed after {@code resume-after} consecutive healthy probes. Paused
+ * containers keep their assignment and committed offsets, so nothing goes to
+ * the DLQ topics while ES is down.
+ */
+@Component
+public class ElasticBackpressure {
+    private static final Logger log = LoggerFactory.getLogger(ElasticBackpressure.class);
+
+    public enum State { RUNNING, PAUSED }
+
+    /** What the last probe saw; {@code reason} is null when everything was healthy. */
+    public record Snapshot(State state,
+                           String reason,
+                           Instant since,
+                           Instant lastProbe,
+                           String clusterStatus,
+                           long writeRejections,
+                           int healthyProbes,
+                           ElasticGuard.State circuit,
+                           double failureRate,
+                           int concurrencyLimit) { }
+
+    private final ElasticsearchClient client;
+    private final ElasticGuard guard;
+    private final KafkaListenerEndpointRegistry registry;
+    private final boolean enabled;
+    private final long probeIntervalMs;
+    private final double errorRateThreshold;
+    private final long rejectionThreshold;
+    private final int resumeAfter;
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor();
+
+    // only touched by the prober thread
+    private long lastRejected = -1;
+    private int healthyProbes;
+
+    private volatile Snapshot snapshot;
+
+    public ElasticBackpressure(ElasticsearchClient client,
+                               ElasticGuard guard,
+                               KafkaListenerEndpointRegistry registry,
+                               @Value("${es.backpressure.enabled:true}") boolean enabled,
+                               @Value("${es.backpressure.probe-interval-ms:1000}") long probeIntervalMs,
+                               @Value("${es.backpressure.error-rate-threshold:0.25}") double errorRateThreshold,
+                               @Value("${es.backpressure.rejection-threshold:1}") long rejectionThreshold,
+                               @Value("${es.backpressure.resume-after:3}") int resumeAfter) {
+        this.client = client;
+        this.guard = guard;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.probeIntervalMs = probeIntervalMs;
+        this.errorRateThreshold = errorRateThreshold;
+        this.rejectionThreshold = rejectionThreshold;
+        this.resumeAfter = resumeAfter;
+        this.snapshot = new Snapshot(State.RUNNING, null, Instant.now(), null, null,
+                0, 0, guard.getState(), 0.0, guard.getLimit());
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            prober.scheduleWithFixedDelay(this::probe, probeIntervalMs, probeIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        prober.shutdownNow();
+    }
+
+    private void probe() {
+        String clusterStatus = null;
+        long rejections = 0;
+        String reason = null;
+        try {
+            HealthStatus status = client.cluster().health().status();
+            clusterStatus = status.jsonValue();
+            rejections = writeRejectionsSinceLastProbe();
+            if (status == HealthStatus.Red) {
+                reason = "cluster status red";
+            } else if (rejections >= rejectionThreshold) {
+                reason = rejections + " write rejections since last probe";
+            }
+        } catch (Exception e) {
+            reason = "probe failed: " + e.getMessage();
+        }
+        double failureRate = guard.getFailureRate();
+        if (guard.isOpen()) {
+            reason = "circuit open";
+        } else if (reason == null && failureRate >= errorRateThreshold) {
+            reason = String.format("error rate %.2f", failureRate);
+        }
+
+        healthyProbes = reason == null ? healthyProbes + 1 : 0;
+        Snapshot previous = snapshot;
+        State state = previous.state();
+        Instant now = Instant.now();
+        Instant since = previous.since();
+        if (state == State.RUNNING && reason != null) {
+            setPaused(true);
+            state = State.PAUSED;
+            since = now;
+            log.warn("Paused listener containers: {}", reason);
+        } else if (state == State.PAUSED && healthyProbes >= resumeAfter) {
+            setPaused(false);
+            state = State.RUNNING;
+            since = now;
+            log.info("Resumed listener containers after {} healthy probes", healthyProbes);
+        }
+        snapshot = new Snapshot(state, reason, since, now, clusterStatus, rejections,
+                healthyProbes, guard.getState(), failureRate, guard.getLimit());
+    }
+
+    // the counters are cumulative per node; the first probe only sets the baseline
+    private long writeRejectionsSinceLastProbe() throws Exception {
+        long total = 0;
+        for (ThreadPoolRecord pool : client.cat().threadPool(t -> t.threadPoolPatterns("write")).valueBody()) {
+            if (pool.rejected() != null) {
+                total += Long.parseLong(pool.rejected());
+            }
+        }
+        long delta = lastRejected < 0 ? 0 : Math.max(0, total - lastRejected);
+        lastRejected = total;
+        return delta;
+    }
+
+    private void setPaused(boolean pause) {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            try {
+                if (pause) {
+                    container.pause();
+                } else {
+                    container.resume();
+                }
+            } catch (Exception e) {
+                log.error("Failed to {} listener container {}",
+                        pause ? "pause" : "resume", container.getListenerId(), e);
+            }
+        }
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isPaused() {
+        return snapshot.state() == State.PAUSED;
+    }
+}
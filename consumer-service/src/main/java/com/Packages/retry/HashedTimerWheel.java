@@ -0,0 +1,124 @@
+package com.Packages.retry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: a ring of buckets advanced by one thread every tick.
+ * A timeout lands in bucket {@code deadlineTick % size} with the number of
+ * full rotations still to wait, so scheduling is O(1) and only one bucket is
+ * inspected per tick regardless of how many timeouts are pending. Expired
+ * items are handed to {@code onExpiry} on the wheel thread, which must not block.
+ */
+public class HashedTimerWheel<T> {
+
+    private static final class Slot<T> {
+        final T item;
+        final long deadlineMs;
+        long rounds;
+
+        Slot(T item, long deadlineMs) {
+            this.item = item;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+
+    private final long tickMs;
+    private final int mask;
+    private final List<ArrayDeque<Slot<T>>> buckets;
+    private final Queue<Slot<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Consumer<T> onExpiry;
+    private final Thread worker;
+    private final long startMs;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedTimerWheel(String name, long tickMs, int wheelSize, Consumer<T> onExpiry) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMs = tickMs;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.onExpiry = onExpiry;
+        this.startMs = System.currentTimeMillis();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void schedule(T item, long delayMs) {
+        pending.incrementAndGet();
+        incoming.add(new Slot<>(item, System.currentTimeMillis() + Math.max(0, delayMs)));
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    /** Stops the wheel and returns everything that has not expired yet. */
+    public List<T> stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        List<T> left = new ArrayList<>();
+        for (ArrayDeque<Slot<T>> bucket : buckets) {
+            bucket.forEach(s -> left.add(s.item));
+            bucket.clear();
+        }
+        Slot<T> s;
+        while ((s = incoming.poll()) != null) {
+            left.add(s.item);
+        }
+        pending.set(0);
+        return left;
+    }
+
+    private void run() {
+        while (running) {
+            long wait = startMs + (tick + 1) * tickMs - System.currentTimeMillis();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferIncoming();
+            expire(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Slot<T> s;
+        while ((s = incoming.poll()) != null) {
+            long deadlineTick = Math.max(tick, (s.deadlineMs - startMs + tickMs - 1) / tickMs);
+            s.rounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(s);
+        }
+    }
+
+    private void expire(ArrayDeque<Slot<T>> bucket) {
+        Iterator<Slot<T>> it = bucket.iterator();
+        while (it.hasNext()) {
+            Slot<T> s = it.next();
+            if (s.rounds > 0) {
+                s.rounds--;
+                continue;
+            }
+            it.remove();
+            pending.decrementAndGet();
+            onExpiry.accept(s.item);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.Packages.retry;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.Packages.resilience.ElasticUnavailableException;
+
+import java.io.IOException;
+
+/** Failure classes that get their own retry budget. */
+public enum RetryReason {
+    /** 429 from Elasticsearch: the cluster asked us to slow down. */
+    RATE_LIMITED,
+    /** 5xx, timeouts and connection failures: ES is down or overloaded. */
+    UNAVAILABLE,
+    /** Anything else that is not a client error. */
+    OTHER;
+
+    public static RetryReason of(Throwable ex) {
+        if (ex instanceof ElasticsearchException ee) {
+            return ee.status() == 429 ? RATE_LIMITED : UNAVAILABLE;
+        }
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof IOException || t instanceof ElasticUnavailableException) {
+                return UNAVAILABLE;
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,218 @@
+package com.Packages.retry;
+
+import com.Packages.resilience.ElasticUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Retry engine shared by the DLQ consumers.
+ * <p>
+ * Failed events are parked in memory on a {@link HashedTimerWheel} and retried
+ * after a jittered exponential backoff, without going back through Kafka.
+ * Each {@link RetryReason} has its own budget: the number of attempts and the
+ * number of events it may park in memory. An event over its budget, or over the
+ * overall capacity, is spilled back to the DLQ topic with a not-before header,
+ * and the consumer waits for that time before processing it again. Parked
+ * events are spilled the same way on shutdown.
+ * <p>
+ * Delivery is at-most-once on a crash: the DLQ offset is committed as soon as an
+ * event is parked, so events parked in memory when the process dies (at most
+ * {@code retry.capacity}) are lost. Setting {@code retry.capacity=0} spills every
+ * retry to the DLQ topic, which survives a crash at the cost of a Kafka round trip
+ * per attempt.
+ */
+@Component
+public class RetryScheduler {
+    private static final Logger log = LoggerFactory.getLogger(RetryScheduler.class);
+
+    public static final String NOT_BEFORE_HEADER = "retry-not-before";
+
+    public enum Outcome { SCHEDULED, SPILLED, EXHAUSTED }
+
+    private record Budget(int maxAttempts, int maxParked, AtomicInteger parked) { }
+
+    private record Parked(RetryReason reason, Runnable retry, LongConsumer spill, long notBefore) { }
+
+    private final Map<RetryReason, Budget> budgets = new EnumMap<>(RetryReason.class);
+    private final int capacity;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long pausedDelayMs;
+    private final HashedTimerWheel<Parked> wheel;
+    private final ExecutorService workers;
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public RetryScheduler(@Value("${retry.capacity:10000}") int capacity,
+                          @Value("${retry.base-delay-ms:100}") long baseDelayMs,
+                          @Value("${retry.max-delay-ms:30000}") long maxDelayMs,
+                          @Value("${retry.paused-delay-ms:1000}") long pausedDelayMs,
+                          @Value("${retry.wheel.tick-ms:10}") long tickMs,
+                          @Value("${retry.wheel.size:512}") int wheelSize,
+                          @Value("${retry.workers:4}") int workerCount,
+                          @Value("${retry.budget.rate-limited.max-attempts:10}") int rateLimitedAttempts,
+                          @Value("${retry.budget.rate-limited.max-parked:5000}") int rateLimitedParked,
+                          @Value("${retry.budget.unavailable.max-attempts:8}") int unavailableAttempts,
+                          @Value("${retry.budget.unavailable.max-parked:5000}") int unavailableParked,
+                          @Value("${retry.budget.other.max-attempts:5}") int otherAttempts,
+                          @Value("${retry.budget.other.max-parked:1000}") int otherParked) {
+        this.capacity = capacity;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.pausedDelayMs = pausedDelayMs;
+        budgets.put(RetryReason.RATE_LIMITED,
+                new Budget(rateLimitedAttempts, rateLimitedParked, new AtomicInteger()));
+        budgets.put(RetryReason.UNAVAILABLE,
+                new Budget(unavailableAttempts, unavailableParked, new AtomicInteger()));
+        budgets.put(RetryReason.OTHER,
+                new Budget(otherAttempts, otherParked, new AtomicInteger()));
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        this.wheel = new HashedTimerWheel<>("retry-wheel", tickMs, wheelSize, this::expire);
+    }
+
+    /**
+     * Schedules attempt number {@code attempt} of a failed event.
+     *
+     * @param retry runs the attempt on a retry worker
+     * @param spill republishes the event with the given not-before time (epoch millis)
+     */
+    public Outcome schedule(Throwable cause, int attempt, Runnable retry, LongConsumer spill) {
+        RetryReason reason = RetryReason.of(cause);
+        Budget budget = budgets.get(reason);
+        if (attempt > budget.maxAttempts()) {
+            exhausted.increment();
+            return Outcome.EXHAUSTED;
+        }
+        long delay = backoff(attempt);
+        long notBefore = System.currentTimeMillis() + delay;
+        boolean withinBudget = budget.parked().incrementAndGet() <= budget.maxParked();
+        if (!withinBudget || wheel.pending() >= capacity) {
+            budget.parked().decrementAndGet();
+            spilled.increment();
+            spill.accept(notBefore);
+            return Outcome.SPILLED;
+        }
+        scheduled.increment();
+        wheel.schedule(new Parked(reason, retry, spill, notBefore), delay);
+        return Outcome.SCHEDULED;
+    }
+
+    // "equal jitter": half of the exponential step is fixed, the other half random
+    long backoff(int attempt) {
+        long exp = Math.min(maxDelayMs, baseDelayMs << Math.min(Math.max(attempt - 1, 0), 30));
+        long half = exp / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private void expire(Parked p) {
+        budgets.get(p.reason()).parked().decrementAndGet();
+        try {
+            workers.execute(() -> run(p));
+        } catch (Exception e) {
+            spill(p, p.notBefore());
+        }
+    }
+
+    private void run(Parked p) {
+        try {
+            p.retry().run();
+        } catch (ElasticUnavailableException e) {
+            // shed by the ES circuit breaker: not an attempt, park it again
+            repark(p);
+        } catch (Exception e) {
+            // the attempt could not record its own outcome; hand the event back to Kafka
+            log.error("Retry failed outside the DLQ consumer's error handling, spilling it", e);
+            spill(p, System.currentTimeMillis() + pausedDelayMs);
+        }
+    }
+
+    private void repark(Parked p) {
+        Budget budget = budgets.get(p.reason());
+        long notBefore = System.currentTimeMillis() + pausedDelayMs;
+        if (budget.parked().incrementAndGet() > budget.maxParked() || wheel.pending() >= capacity) {
+            budget.parked().decrementAndGet();
+            spill(p, notBefore);
+            return;
+        }
+        wheel.schedule(new Parked(p.reason(), p.retry(), p.spill(), notBefore), pausedDelayMs);
+    }
+
+    private void spill(Parked p, long notBefore) {
+        spilled.increment();
+        try {
+            p.spill().accept(notBefore);
+        } catch (Exception e) {
+            log.error("Could not spill a parked retry to Kafka; the event is lost", e);
+        }
+    }
+
+    /** Blocks the listener until a spilled event is due; capped at the max backoff. */
+    public void awaitNotBefore(byte[] header) {
+        if (header == null) {
+            return;
+        }
+        try {
+            long wait = Long.parseLong(new String(header, StandardCharsets.UTF_8))
+                    - System.currentTimeMillis();
+            if (wait > 0) {
+                Thread.sleep(Math.min(wait, maxDelayMs));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed {} header", NOT_BEFORE_HEADER);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static <V> ProducerRecord<String, V> spillRecord(String topic, String key, V value, long notBefore) {
+        ProducerRecord<String, V> record = new ProducerRecord<>(topic, key, value);
+        record.headers().add(new RecordHeader(NOT_BEFORE_HEADER,
+                Long.toString(notBefore).getBytes(StandardCharsets.UTF_8)));
+        return record;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        List<Parked> left = wheel.stop();
+        for (Parked p : left) {
+            spill(p, p.notBefore());
+        }
+        workers.shutdown();
+        if (!left.isEmpty()) {
+            log.info("Spilled {} parked retries on shutdown", left.size());
+        }
+    }
+
+    public int getParked() {
+        return wheel.pending();
+    }
+
+    public long getScheduled() {
+        return scheduled.sum();
+    }
+
+    public long getSpilled() {
+        return spilled.sum();
+    }
+
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+}
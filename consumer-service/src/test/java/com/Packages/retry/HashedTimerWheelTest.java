@@ -0,0 +1,51 @@
+package com.Packages.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimerWheelTest {
+
+    @Test
+    void expiresItemsThatWaitSeveralRotations() throws Exception {
+        Map<String, Long> expiredAt = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(2);
+        // 4 buckets of 5ms: one rotation is 20ms, so the 100ms item waits five rounds
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>("test-wheel", 5, 4, item -> {
+            expiredAt.put(item, System.currentTimeMillis());
+            done.countDown();
+        });
+        long start = System.currentTimeMillis();
+        wheel.schedule("late", 100);
+        wheel.schedule("early", 10);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        wheel.stop();
+
+        assertThat(expiredAt.get("early")).isLessThan(expiredAt.get("late"));
+        assertThat(expiredAt.get("late") - start).isGreaterThanOrEqualTo(100);
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void stopReturnsWhatHasNotExpired() throws Exception {
+        CountDownLatch expired = new CountDownLatch(1);
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>("test-wheel", 5, 4, item -> expired.countDown());
+        wheel.schedule("due", 0);
+        wheel.schedule("parked", 60_000);
+
+        assertThat(expired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(wheel.pending()).isEqualTo(1);
+
+        List<String> left = wheel.stop();
+
+        assertThat(left).containsExactly("parked");
+        assertThat(wheel.pending()).isZero();
+    }
+}
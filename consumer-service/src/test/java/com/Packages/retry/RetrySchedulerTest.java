@@ -0,0 +1,110 @@
+package com.Packages.retry;
+
+import com.Packages.resilience.ElasticUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetrySchedulerTest {
+    private static final Runnable NEVER = () -> { throw new AssertionError("retry must not run"); };
+
+    private final List<Long> spills = new CopyOnWriteArrayList<>();
+    private final LongConsumer spill = spills::add;
+    private RetryScheduler scheduler;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        scheduler.stop();
+    }
+
+    @Test
+    void dueRetryRunsOnAWorker() throws Exception {
+        scheduler = scheduler(100, 10, 10);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        assertThat(scheduler.schedule(new RuntimeException("boom"), 1, ran::countDown, spill))
+                .isEqualTo(RetryScheduler.Outcome.SCHEDULED);
+
+        assertThat(ran.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(spills).isEmpty();
+    }
+
+    @Test
+    void spillsOnceTheReasonsBudgetIsFull() {
+        scheduler = scheduler(100, 60_000, 1);
+        long before = System.currentTimeMillis();
+
+        assertThat(scheduler.schedule(new RuntimeException("boom"), 1, NEVER, spill))
+                .isEqualTo(RetryScheduler.Outcome.SCHEDULED);
+        assertThat(scheduler.schedule(new RuntimeException("boom"), 1, NEVER, spill))
+                .isEqualTo(RetryScheduler.Outcome.SPILLED);
+
+        assertThat(spills).singleElement().satisfies(notBefore -> assertThat(notBefore).isGreaterThan(before));
+        assertThat(scheduler.getParked()).isEqualTo(1);
+        assertThat(scheduler.getSpilled()).isEqualTo(1);
+    }
+
+    @Test
+    void zeroCapacitySpillsEveryRetry() {
+        scheduler = scheduler(0, 10, 10);
+
+        assertThat(scheduler.schedule(new RuntimeException("boom"), 1, NEVER, spill))
+                .isEqualTo(RetryScheduler.Outcome.SPILLED);
+        assertThat(scheduler.getParked()).isZero();
+    }
+
+    @Test
+    void attemptsPastTheBudgetAreExhausted() {
+        scheduler = scheduler(100, 10, 10);
+
+        assertThat(scheduler.schedule(new RuntimeException("boom"), 4, NEVER, spill))
+                .isEqualTo(RetryScheduler.Outcome.EXHAUSTED);
+        assertThat(spills).isEmpty();
+        assertThat(scheduler.getExhausted()).isEqualTo(1);
+    }
+
+    @Test
+    void stopSpillsWhatIsStillParked() throws InterruptedException {
+        scheduler = scheduler(100, 60_000, 10);
+        scheduler.schedule(new RuntimeException("boom"), 1, NEVER, spill);
+        scheduler.schedule(new RuntimeException("boom"), 2, NEVER, spill);
+
+        scheduler.stop();
+
+        assertThat(spills).hasSize(2);
+        assertThat(scheduler.getParked()).isZero();
+    }
+
+    @Test
+    void retryShedByTheBreakerIsParkedAgain() throws Exception {
+        scheduler = scheduler(100, 10, 10);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch succeeded = new CountDownLatch(1);
+        Runnable retry = () -> {
+            if (runs.incrementAndGet() == 1) {
+                throw new ElasticUnavailableException("circuit open");
+            }
+            succeeded.countDown();
+        };
+
+        scheduler.schedule(new RuntimeException("boom"), 1, retry, spill);
+
+        assertThat(succeeded.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs.get()).isEqualTo(2);
+        assertThat(spills).isEmpty();
+    }
+
+    // OTHER allows 3 attempts; reparks after 20ms on a 5ms x 8 wheel
+    private static RetryScheduler scheduler(int capacity, long baseDelayMs, int otherParked) {
+        return new RetryScheduler(capacity, baseDelayMs, baseDelayMs, 20, 5, 8, 2,
+                10, 100, 8, 100, 3, otherParked);
+    }
+}
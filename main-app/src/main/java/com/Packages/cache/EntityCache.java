@@ -0,0 +1,209 @@
+package com.Packages.cache;
+
+import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU of entities in front of the entity index, one entry per id
+ * holding the newest version seen.
+ * <p>
+ * Reads fill it from ES and never replace a newer version or a delete. The
+ * sync services report every Mongo write. With {@code read.consistency=eventual}
+ * a write replaces the entry with a marker holding the written version: reads
+ * miss and go to ES, and an ES read is cached only once ES holds that version or
+ * a newer one. Until then, on every approach, reads see ES's older state but the
+ * cache never pins it. With {@code read-your-writes} the write is cached as written, and a delete as a
+ * tombstone, so reads see it before the sync to ES has happened. A write always
+ * wins over an older entry, and over a tombstone, so a re-create after a
+ * delete is seen. Entries expire after {@code read.cache.ttl-ms}, which bounds
+ * how stale the cache of one instance can get from writes made by other instances.
+ * <p>
+ * Metrics: {@code entity.cache.requests} tagged result hit/miss, and the
+ * {@code entity.cache.size} gauge.
+ */
+@Component
+public class EntityCache {
+    private final boolean enabled;
+    private final boolean readYourWrites;
+    private final long ttlMs;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public EntityCache(MeterRegistry registry,
+                       @Value("${read.cache.enabled:true}") boolean enabled,
+                       @Value("${read.cache.max-entries:100000}") int maxEntries,
+                       @Value("${read.cache.ttl-ms:60000}") long ttlMs,
+                       @Value("${read.consistency:eventual}") String consistency) {
+        this.enabled = enabled;
+        this.readYourWrites = "read-your-writes".equals(consistency);
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("entity.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("entity.cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("entity.cache.size", this, EntityCache::size).register(registry);
+    }
+
+    /** What the cache knows about an id: the entity, a delete, or nothing. */
+    public record Lookup(boolean hit, Entity entity) {
+        static final Lookup MISS = new Lookup(false, null);
+    }
+
+    public Lookup get(String id) {
+        return lookup(id, true);
+    }
+
+    /** Like {@link #get} but not counted in the hit/miss metrics. */
+    public Lookup peek(String id) {
+        return lookup(id, false);
+    }
+
+    private Lookup lookup(String id, boolean counted) {
+        if (!enabled) {
+            return Lookup.MISS;
+        }
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(id);
+            if (e != null && e.expiresAt < System.currentTimeMillis()) {
+                entries.remove(id);
+                e = null;
+            }
+        }
+        if (e == null || e.pending()) {
+            if (counted) {
+                misses.increment();
+            }
+            return Lookup.MISS;
+        }
+        if (counted) {
+            hits.increment();
+        }
+        return new Lookup(true, copy(e.entity));
+    }
+
+    /** Result of an ES read; kept only if nothing newer is cached for the id. */
+    public void loaded(Entity entity) {
+        if (!enabled || entity == null || entity.getId() == null) {
+            return;
+        }
+        long version = versionOf(entity);
+        synchronized (entries) {
+            Entry current = entries.get(entity.getId());
+            boolean newer = current == null
+                    || (current.pending() ? current.version <= version
+                                          : !current.deleted() && current.version < version);
+            if (newer) {
+                entries.put(entity.getId(), new Entry(version, copy(entity), expiry(), false));
+            }
+        }
+    }
+
+    /** A create or update committed to Mongo, with the version it was given. */
+    public void written(Entity entity) {
+        if (!enabled || entity == null || entity.getId() == null) {
+            return;
+        }
+        long version = versionOf(entity);
+        if (!readYourWrites) {
+            pending(entity.getId(), version);
+            return;
+        }
+        synchronized (entries) {
+            Entry current = entries.get(entity.getId());
+            if (current == null || current.deleted() || current.version < version) {
+                entries.put(entity.getId(), new Entry(version, copy(entity), expiry(), false));
+            }
+        }
+    }
+
+    /** A delete committed to Mongo; {@code version} is the version it removed plus one. */
+    public void deleted(String id, long version) {
+        if (!enabled) {
+            return;
+        }
+        if (!readYourWrites) {
+            pending(id, version);
+            return;
+        }
+        synchronized (entries) {
+            Entry current = entries.get(id);
+            if (current == null || current.version < version) {
+                entries.put(id, new Entry(version, null, expiry(), false));
+            }
+        }
+    }
+
+    private void pending(String id, long version) {
+        synchronized (entries) {
+            // writes may be reported out of order; the marker keeps the highest version seen
+            Entry current = entries.get(id);
+            long floor = current == null ? version : Math.max(current.version, version);
+            entries.put(id, new Entry(floor, null, expiry(), true));
+        }
+    }
+
+    /** Reports every applied item of a bulk call. */
+    public void written(List<EntityBulkChange> changes) {
+        for (EntityBulkChange c : changes) {
+            if (!c.isApplied()) {
+                continue;
+            }
+            if (c.getOperation().equals("delete")) {
+                deleted(c.getId(), c.operationSeq());
+            } else {
+                written(c.getEntity());
+            }
+        }
+    }
+
+    public void evict(String id) {
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + ttlMs;
+    }
+
+    private static long versionOf(Entity entity) {
+        return entity.getVersion() != null ? entity.getVersion() : 0;
+    }
+
+    private static Entity copy(Entity e) {
+        return e == null ? null
+                : new Entity(e.getId(), e.getName(), e.getCreateTime(), e.getModifiedTime(), e.getVersion());
+    }
+
+    /** A cached entity, a tombstone (no entity), or a pending write not yet confirmed in ES. */
+    private record Entry(long version, Entity entity, long expiresAt, boolean pending) {
+        boolean deleted() {
+            return entity == null && !pending;
+        }
+    }
+}
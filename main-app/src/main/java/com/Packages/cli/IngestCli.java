@@ -0,0 +1,75 @@
+package com.Packages.cli;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Uploads an NDJSON file to {@code POST /api/ingest} and prints the report.
+ * The file is streamed from disk, so it can be larger than the heap.
+ * <pre>
+ * gradle :main-app:ingest --args="entities.jsonl --approach=kafka --chunk-size=1000 --in-flight=8"
+ * </pre>
+ * Options: {@code --url} (default http://localhost:8080), {@code --approach}
+ * (direct, kafka, hybrid, stream), {@code --chunk-size}, {@code --in-flight}.
+ */
+public final class IngestCli {
+    private IngestCli() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path file = null;
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("url", "http://localhost:8080");
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else {
+                file = Path.of(arg);
+            }
+        }
+        if (file == null || !Files.isRegularFile(file)) {
+            System.err.println("usage: IngestCli <file.jsonl> [--url=...] [--approach=direct|kafka|hybrid|stream]"
+                    + " [--chunk-size=N] [--in-flight=N]");
+            System.exit(2);
+        }
+
+        StringBuilder query = new StringBuilder();
+        param(query, "approach", options.get("approach"));
+        param(query, "chunkSize", options.get("chunk-size"));
+        param(query, "inFlight", options.get("in-flight"));
+        URI uri = URI.create(options.get("url") + "/api/ingest" + query);
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofFile(file))
+                .build();
+        System.err.printf("Uploading %s (%d bytes) to %s%n", file, Files.size(file), uri);
+        HttpResponse<String> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofString());
+        System.out.println(response.body());
+        if (response.statusCode() >= 300) {
+            System.err.println("Ingest failed with HTTP " + response.statusCode());
+            System.exit(1);
+        }
+    }
+
+    private static void param(StringBuilder query, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        query.append(query.isEmpty() ? '?' : '&')
+                .append(name)
+                .append('=')
+                .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+}
@@ -18,10 +18,15 @@ public class ElasticConfiguration {
     @Primary
     public ElasticsearchClient entityClient(
             @Value("${es.entity.host:localhost}") String host,
-            @Value("${es.entity.port:9200}") int port
+            @Value("${es.entity.port:9200}") int port,
+            @Value("${es.client.max-conn-total:30}") int maxConnTotal,
+            @Value("${es.client.max-conn-per-route:10}") int maxConnPerRoute
     ) {
         RestClient restClient = RestClient.builder(
                 new HttpHost(host, port, "http")
+        ).setHttpClientConfigCallback(hc -> hc
+                .setMaxConnTotal(maxConnTotal)
+                .setMaxConnPerRoute(maxConnPerRoute)
         ).build();
         ObjectMapper objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule());
@@ -36,10 +41,15 @@ public class ElasticConfiguration {
     @Bean("metadataClient")
     public ElasticsearchClient metadataClient(
             @Value("${es.metadata.host:localhost}") String host,
-            @Value("${es.metadata.port:9201}") int port
+            @Value("${es.metadata.port:9201}") int port,
+            @Value("${es.client.max-conn-total:30}") int maxConnTotal,
+            @Value("${es.client.max-conn-per-route:10}") int maxConnPerRoute
     ) {
         RestClient restClient = RestClient.builder(
                 new HttpHost(host, port, "http")
+        ).setHttpClientConfigCallback(hc -> hc
+                .setMaxConnTotal(maxConnTotal)
+                .setMaxConnPerRoute(maxConnPerRoute)
         ).build();
 
         ObjectMapper objectMapper = new ObjectMapper()
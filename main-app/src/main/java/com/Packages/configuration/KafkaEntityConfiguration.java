@@ -1,10 +1,12 @@
 package com.Packages.configuration;
 
+import com.Packages.kafka.EntityEventSerializer;
 import com.Packages.model.EntityEvent;
 import com.Packages.model.EntityEventVersion;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -16,12 +18,37 @@ import java.util.Map;
 
 @Configuration
 public class KafkaEntityConfiguration {
+    // json | binary; consumers read both, so switch them before the producers
+    @Value("${kafka.entity.wire-format:json}")
+    private String wireFormat;
+
+    // defaults are the client defaults; the "throughput" profile raises them
+    @Value("${kafka.producer.linger-ms:0}")
+    private int lingerMs;
+    @Value("${kafka.producer.batch-size:16384}")
+    private int batchSize;
+    @Value("${kafka.producer.compression-type:none}")
+    private String compressionType;
+    @Value("${kafka.producer.idempotence:true}")
+    private boolean idempotence;
+    @Value("${kafka.producer.acks:all}")
+    private String acks;
+    @Value("${kafka.producer.delivery-timeout-ms:120000}")
+    private int deliveryTimeoutMs;
+
     @Bean
     public ProducerFactory<String, EntityEvent> producerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                "binary".equalsIgnoreCase(wireFormat) ? EntityEventSerializer.class : JsonSerializer.class);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        config.put(ProducerConfig.ACKS_CONFIG, acks);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
         return new DefaultKafkaProducerFactory<>(config);
     }
 
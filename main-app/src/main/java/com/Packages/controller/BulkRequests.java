@@ -0,0 +1,59 @@
+package com.Packages.controller;
+
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/** Splits the body of a /bulk call into batches of {@code bulk.batch-size} items. */
+final class BulkRequests {
+    private BulkRequests() {
+    }
+
+    static List<BulkEntityResult> inBatches(List<BulkEntityRequest> items,
+                                            int batchSize,
+                                            Function<List<BulkEntityRequest>, List<BulkEntityResult>> bulk) {
+        List<BulkEntityResult> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += batchSize) {
+            results.addAll(bulk.apply(items.subList(from, Math.min(items.size(), from + batchSize))));
+        }
+        return results;
+    }
+
+    /** NDJSON is parsed lazily, so only one batch of requests is held at a time. */
+    static List<BulkEntityResult> fromNdjson(ObjectMapper mapper,
+                                             InputStream body,
+                                             int batchSize,
+                                             Function<List<BulkEntityRequest>, List<BulkEntityResult>> bulk)
+            throws IOException {
+        List<BulkEntityResult> results = new ArrayList<>();
+        List<BulkEntityRequest> batch = new ArrayList<>(batchSize);
+        try (MappingIterator<BulkEntityRequest> it = mapper.readerFor(BulkEntityRequest.class).readValues(body)) {
+            while (it.hasNextValue()) {
+                batch.add(it.nextValue());
+                if (batch.size() == batchSize) {
+                    results.addAll(bulk.apply(batch));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // batches before the bad line have been applied; their results are lost to the caller
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Malformed NDJSON after " + (results.size() + batch.size()) + " items: "
+                            + e.getOriginalMessage());
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(bulk.apply(batch));
+        }
+        return results;
+    }
+}
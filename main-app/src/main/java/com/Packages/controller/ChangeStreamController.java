@@ -1,20 +1,35 @@
 package com.Packages.controller;
 
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
 import com.Packages.dto.EntityDTO;
 import com.Packages.service.ChangeStreamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/entity/stream")
 public class ChangeStreamController {
 
     private final ChangeStreamService changeStreamService;
+    private final ObjectMapper objectMapper;
+    private final int bulkBatchSize;
 
-    public ChangeStreamController(ChangeStreamService changeStreamService) {
+    public ChangeStreamController(ChangeStreamService changeStreamService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${bulk.batch-size:500}") int bulkBatchSize) {
         this.changeStreamService = changeStreamService;
+        this.objectMapper = objectMapper;
+        this.bulkBatchSize = bulkBatchSize;
     }
 
     @PostMapping("/create")
@@ -35,5 +50,13 @@ public class ChangeStreamController {
         return changeStreamService.deleteEntity(documentId);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BulkEntityResult> bulk(@RequestBody List<BulkEntityRequest> items) {
+        return BulkRequests.inBatches(items, bulkBatchSize, changeStreamService::bulk);
+    }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<BulkEntityResult> bulkNdjson(InputStream body) throws IOException {
+        return BulkRequests.fromNdjson(objectMapper, body, bulkBatchSize, changeStreamService::bulk);
+    }
 }
@@ -1,16 +1,29 @@
 package com.Packages.controller;
 
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
 import com.Packages.dto.EntityDTO;
 import com.Packages.service.DirectDataTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/entity")
 public class DirectDataTransferController {
     @Autowired
     private DirectDataTransferService directDataTransferService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${bulk.batch-size:500}")
+    private int bulkBatchSize;
 
     @PostMapping("/create")
     @ResponseStatus(HttpStatus.CREATED)
@@ -29,4 +42,14 @@ public class DirectDataTransferController {
     public boolean deleteEntity(@PathVariable String documentId) {
         return directDataTransferService.deleteEntity(documentId);
     }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BulkEntityResult> bulk(@RequestBody List<BulkEntityRequest> items) {
+        return BulkRequests.inBatches(items, bulkBatchSize, directDataTransferService::bulk);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<BulkEntityResult> bulkNdjson(InputStream body) throws IOException {
+        return BulkRequests.fromNdjson(objectMapper, body, bulkBatchSize, directDataTransferService::bulk);
+    }
 }
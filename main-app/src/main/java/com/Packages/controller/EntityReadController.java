@@ -0,0 +1,58 @@
+package com.Packages.controller;
+
+import com.Packages.dto.EntityDTO;
+import com.Packages.model.Entity;
+import com.Packages.resilience.ElasticUnavailableException;
+import com.Packages.service.EntityReadService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/entity")
+public class EntityReadController {
+    private final EntityReadService readService;
+
+    public EntityReadController(EntityReadService readService) {
+        this.readService = readService;
+    }
+
+    @GetMapping("/{documentId}")
+    public ResponseEntity<EntityDTO> get(@PathVariable String documentId) {
+        Entity e = available(() -> readService.get(documentId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No entity " + documentId));
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (e.getVersion() != null) {
+            ok.eTag("\"" + e.getVersion() + "\"");
+        }
+        return ok.body(toDto(e));
+    }
+
+    @GetMapping("/search")
+    public List<EntityDTO> search(@RequestParam(defaultValue = "") String q,
+                                  @RequestParam(defaultValue = "0") int from,
+                                  @RequestParam(defaultValue = "20") int size) {
+        if (from < 0 || size < 1 || size > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be >= 0 and size 1..1000");
+        }
+        return available(() -> readService.search(q, from, size)).stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    // an open ES circuit is a 503, not a 500
+    private <T> T available(java.util.function.Supplier<T> read) {
+        try {
+            return read.get();
+        } catch (ElasticUnavailableException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    private EntityDTO toDto(Entity e) {
+        return new EntityDTO(e.getId(), e.getName(), e.getCreateTime(), e.getModifiedTime());
+    }
+}
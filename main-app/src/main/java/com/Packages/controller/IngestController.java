@@ -0,0 +1,45 @@
+package com.Packages.controller;
+
+import com.Packages.dto.IngestReport;
+import com.Packages.service.IngestService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/ingest")
+public class IngestController {
+    private final IngestService ingestService;
+    private final int defaultChunkSize;
+    private final int defaultInFlight;
+
+    public IngestController(IngestService ingestService,
+                            @Value("${ingest.chunk-size:500}") int defaultChunkSize,
+                            @Value("${ingest.in-flight:4}") int defaultInFlight) {
+        this.ingestService = ingestService;
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultInFlight = defaultInFlight;
+    }
+
+    @PostMapping(consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public IngestReport ingest(InputStream body,
+                               @RequestParam(defaultValue = "direct") String approach,
+                               @RequestParam(required = false) Integer chunkSize,
+                               @RequestParam(required = false) Integer inFlight)
+            throws IOException, InterruptedException {
+        if (!ingestService.supports(approach)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown approach: " + approach);
+        }
+        int chunk = chunkSize != null ? chunkSize : defaultChunkSize;
+        int parallel = inFlight != null ? inFlight : defaultInFlight;
+        if (chunk < 1 || parallel < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize and inFlight must be positive");
+        }
+        return ingestService.ingest(body, approach, chunk, parallel);
+    }
+}
@@ -1,17 +1,30 @@
 package com.Packages.controller;
 
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
 import com.Packages.dto.EntityDTO;
 import com.Packages.service.KafkaSyncService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/entity/kafka")
 public class KafkaSyncController {
     @Autowired
     private KafkaSyncService kafkaSyncService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${bulk.batch-size:500}")
+    private int bulkBatchSize;
 
     @PostMapping("/create")
     @ResponseStatus(HttpStatus.CREATED)
@@ -30,4 +43,14 @@ public class KafkaSyncController {
     public boolean deleteEntity(@PathVariable String documentId) {
         return kafkaSyncService.deleteEntity(documentId);
     }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BulkEntityResult> bulk(@RequestBody List<BulkEntityRequest> items) {
+        return BulkRequests.inBatches(items, bulkBatchSize, kafkaSyncService::bulk);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<BulkEntityResult> bulkNdjson(InputStream body) throws IOException {
+        return BulkRequests.fromNdjson(objectMapper, body, bulkBatchSize, kafkaSyncService::bulk);
+    }
 }
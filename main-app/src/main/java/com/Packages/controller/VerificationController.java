@@ -0,0 +1,31 @@
+package com.Packages.controller;
+
+import com.Packages.verify.ConsistencyVerifier;
+import com.Packages.verify.VerificationReport;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/verify")
+public class VerificationController {
+    private final ConsistencyVerifier verifier;
+
+    public VerificationController(ConsistencyVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public VerificationReport start(@RequestParam(defaultValue = "16") int ranges,
+                                    @RequestParam(defaultValue = "true") boolean recheck,
+                                    @RequestParam(defaultValue = "false") boolean repair) {
+        return verifier.start(ranges, recheck, repair);
+    }
+
+    @GetMapping("/{jobId}")
+    public VerificationReport report(@PathVariable String jobId) {
+        return verifier.report(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No verification " + jobId));
+    }
+}
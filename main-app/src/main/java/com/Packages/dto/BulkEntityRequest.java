@@ -0,0 +1,17 @@
+package com.Packages.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One item of a /bulk call: create (id optional), update (id, name) or delete (id). */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEntityRequest {
+    private String operation;
+    private String id;
+    private String name;
+}
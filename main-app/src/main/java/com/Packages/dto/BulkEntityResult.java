@@ -0,0 +1,39 @@
+package com.Packages.dto;
+
+import com.Packages.model.EntityBulkChange;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one /bulk item, in request order. {@code status} is the HTTP status
+ * the single-item call would have ended with for the Mongo write (201, 200, 400,
+ * 404, 409, 500); {@code esStatus} is what happened on the ES side, when the
+ * approach writes ES itself (success, not_found, failure, queued).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkEntityResult {
+    private String id;
+    private String operation;
+    private int status;
+    private Long version;
+    private String esStatus;
+    private String error;
+
+    public static BulkEntityResult of(EntityBulkChange change) {
+        return BulkEntityResult.builder()
+                .id(change.getId())
+                .operation(change.getOperation())
+                .status(change.getStatus())
+                .version(change.isApplied() && change.getEntity() != null ? change.operationSeq() : null)
+                .esStatus(change.getEsStatus())
+                .error(change.getError())
+                .build();
+    }
+}
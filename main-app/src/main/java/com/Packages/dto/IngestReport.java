@@ -0,0 +1,33 @@
+package com.Packages.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of one NDJSON ingest. Per-item results are not kept, so the report
+ * stays the same size whatever the upload: only counts per status and the first
+ * {@code ingest.max-errors} failed lines.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestReport {
+    private String approach;
+    private long lines;
+    private long chunks;
+    private Map<Integer, Long> statuses;
+    private long failed;
+    private List<LineError> errors;
+    private long elapsedMillis;
+    private long itemsPerSecond;
+
+    public record LineError(long line, String id, int status, String error) { }
+}
@@ -0,0 +1,284 @@
+package com.Packages.kafka;
+
+import com.Packages.model.Entity;
+import com.Packages.model.EntityEvent;
+import com.Packages.model.EntityMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of {@link EntityEvent}.
+ * <p>
+ * Layout (schema version 1): magic byte, schema version, then the event fields
+ * in declaration order. Strings are length-prefixed UTF-8, integers are zig-zag
+ * varints, timestamps are epoch millis in UTC, and the closed-vocabulary fields
+ * (operation, index, approach, statuses) are single-byte codes with a literal
+ * escape for values outside the table. Nested objects and nullable fields carry
+ * a presence marker.
+ * <p>
+ * Timestamps keep millisecond precision only: the sub-millisecond part of
+ * {@code createTime}/{@code modifiedTime} is dropped, while the JSON format keeps
+ * it. Mongo stores dates as millis, so nothing read back from Mongo is lost;
+ * only an entity built in memory with finer times decodes slightly different.
+ * <p>
+ * New fields go at the end under a new schema version; code tables are
+ * append-only.
+ */
+public final class EntityEventCodec {
+    public static final byte MAGIC = (byte) 0xE7;
+    public static final byte SCHEMA_VERSION = 1;
+
+    private static final String[] OPERATIONS = {"create", "update", "delete"};
+    private static final String[] INDICES = {"entity"};
+    private static final String[] APPROACHES = {
+            "Direct Data Transfer", "Kafka Sync", "Hybrid Sync", "Change Stream"};
+    private static final String[] STATUSES = {"pending", "success", "failure", "not_found"};
+
+    private static final int NULL_CODE = 0;
+    private static final int LITERAL_CODE = 0x7F;
+
+    private EntityEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(EntityEvent event) {
+        Writer w = new Writer(160);
+        w.writeByte(MAGIC);
+        w.writeByte(SCHEMA_VERSION);
+        w.writeCoded(event.getOperation(), OPERATIONS);
+        w.writeString(event.getId());
+        w.writeCoded(event.getIndex(), INDICES);
+
+        Entity entity = event.getEntity();
+        w.writeBoolean(entity != null);
+        if (entity != null) {
+            w.writeString(entity.getId());
+            w.writeString(entity.getName());
+            w.writeTime(entity.getCreateTime());
+            w.writeTime(entity.getModifiedTime());
+            w.writeLong(entity.getVersion());
+        }
+
+        EntityMetadata meta = event.getEntityMetadata();
+        w.writeBoolean(meta != null);
+        if (meta != null) {
+            w.writeString(meta.getMetaId());
+            w.writeString(meta.getEntityId());
+            w.writeCoded(meta.getApproach(), APPROACHES);
+            w.writeCoded(meta.getOperation(), OPERATIONS);
+            w.writeLong(meta.getOperationSeq());
+            w.writeLong(meta.getMongoWriteMillis());
+            w.writeLong(meta.getEsSyncMillis());
+            w.writeLong(meta.getFirstFailureTime());
+            w.writeLong(meta.getSyncAttempt() == null ? null : meta.getSyncAttempt().longValue());
+            w.writeCoded(meta.getMongoStatus(), STATUSES);
+            w.writeCoded(meta.getEsStatus(), STATUSES);
+            w.writeString(meta.getDlqReason());
+        }
+        return w.toByteArray();
+    }
+
+    public static EntityEvent decode(byte[] data) {
+        Reader r = new Reader(data);
+        if (r.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary EntityEvent payload");
+        }
+        byte version = r.readByte();
+        if (version != SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported EntityEvent schema version " + version);
+        }
+        EntityEvent event = new EntityEvent();
+        event.setOperation(r.readCoded(OPERATIONS));
+        event.setId(r.readString());
+        event.setIndex(r.readCoded(INDICES));
+
+        if (r.readBoolean()) {
+            event.setEntity(Entity.builder()
+                    .id(r.readString())
+                    .name(r.readString())
+                    .createTime(r.readTime())
+                    .modifiedTime(r.readTime())
+                    .version(r.readLong())
+                    .build());
+        }
+
+        if (r.readBoolean()) {
+            EntityMetadata.EntityMetadataBuilder meta = EntityMetadata.builder()
+                    .metaId(r.readString())
+                    .entityId(r.readString())
+                    .approach(r.readCoded(APPROACHES))
+                    .operation(r.readCoded(OPERATIONS))
+                    .operationSeq(r.readLong())
+                    .mongoWriteMillis(r.readLong())
+                    .esSyncMillis(r.readLong())
+                    .firstFailureTime(r.readLong());
+            Long attempt = r.readLong();
+            event.setEntityMetadata(meta
+                    .syncAttempt(attempt == null ? null : attempt.intValue())
+                    .mongoStatus(r.readCoded(STATUSES))
+                    .esStatus(r.readCoded(STATUSES))
+                    .dlqReason(r.readString())
+                    .build());
+        }
+        return event;
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int initialSize) {
+            buf = new byte[initialSize];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeBoolean(boolean b) {
+            writeByte(b ? 1 : 0);
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        // presence-prefixed zig-zag varint
+        void writeLong(Long v) {
+            writeBoolean(v != null);
+            if (v != null) {
+                writeVarLong((v << 1) ^ (v >> 63));
+            }
+        }
+
+        void writeTime(LocalDateTime t) {
+            writeLong(t == null ? null : t.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+
+        // length + 1, so that 0 encodes null
+        void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeCoded(String s, String[] table) {
+            if (s == null) {
+                writeByte(NULL_CODE);
+                return;
+            }
+            for (int i = 0; i < table.length; i++) {
+                if (table[i].equals(s)) {
+                    writeByte(i + 1);
+                    return;
+                }
+            }
+            writeByte(LITERAL_CODE);
+            writeString(s);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte readByte() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated EntityEvent payload");
+            }
+            return buf[pos++];
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in EntityEvent payload");
+        }
+
+        Long readLong() {
+            if (!readBoolean()) {
+                return null;
+            }
+            long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        LocalDateTime readTime() {
+            Long millis = readLong();
+            return millis == null
+                    ? null
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+        }
+
+        String readString() {
+            long len = readVarLong();
+            if (len == 0) {
+                return null;
+            }
+            int n = (int) (len - 1);
+            if (n < 0 || pos + n > buf.length) {
+                throw new IllegalArgumentException("Truncated EntityEvent payload");
+            }
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+
+        String readCoded(String[] table) {
+            int code = readByte() & 0xFF;
+            if (code == NULL_CODE) {
+                return null;
+            }
+            if (code == LITERAL_CODE) {
+                return readString();
+            }
+            if (code > table.length) {
+                throw new IllegalArgumentException("Unknown code " + code + " in EntityEvent payload");
+            }
+            return table[code - 1];
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.Packages.kafka;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value deserializer that reads both wire formats: binary frames
+ * ({@link EntityEventCodec}) are recognised by their magic byte, anything else
+ * is handed to Spring's {@link JsonDeserializer}, configured from the usual
+ * {@code spring.json.*} properties. Consumers can therefore be switched before
+ * the producers, and JSON-only payloads such as EntityEventVersion keep working.
+ */
+public class EntityEventDeserializer implements Deserializer<Object> {
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (EntityEventCodec.isBinary(data)) {
+            return EntityEventCodec.decode(data);
+        }
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (EntityEventCodec.isBinary(data)) {
+            return EntityEventCodec.decode(data);
+        }
+        return json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
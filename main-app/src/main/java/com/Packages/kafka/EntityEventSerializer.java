@@ -0,0 +1,13 @@
+package com.Packages.kafka;
+
+import com.Packages.model.EntityEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/** Kafka value serializer writing {@link EntityEventCodec} binary frames. */
+public class EntityEventSerializer implements Serializer<EntityEvent> {
+
+    @Override
+    public byte[] serialize(String topic, EntityEvent data) {
+        return data == null ? null : EntityEventCodec.encode(data);
+    }
+}
@@ -1,18 +1,93 @@
 package com.Packages.kafka;
 
 import com.Packages.model.EntityEvent;
-import com.Packages.model.EntityEventVersion;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.Packages.model.EntityMetadata;
+import com.Packages.repository.MetadataWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes EntityEvents without blocking the request. Every send completion
+ * is timed as {@code entity.producer.send} (tagged by topic and result); a
+ * failed send marks the event's metadata record as failed, since no consumer
+ * will ever pick it up.
+ */
 @Service
 public class EntityProducer {
-    private static final String topic = "entity113";
-    @Autowired
-    private KafkaTemplate<String, EntityEvent> kafkaTemplate;
-    private KafkaTemplate<String, EntityEventVersion> kafkaTemplateVersion;
-    public void sendToKafka(EntityEvent entityEvent) {
-        kafkaTemplate.send(topic, entityEvent.getEntity().getId(), entityEvent);
+    private static final Logger log = LoggerFactory.getLogger(EntityProducer.class);
+    public static final String TOPIC = "entity113";
+
+    private final KafkaTemplate<String, EntityEvent> kafkaTemplate;
+    private final MetadataWriter metaWriter;
+    private final MeterRegistry registry;
+
+    public EntityProducer(KafkaTemplate<String, EntityEvent> kafkaTemplate,
+                          MetadataWriter metaWriter,
+                          MeterRegistry registry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.metaWriter = metaWriter;
+        this.registry = registry;
+    }
+
+    public CompletableFuture<SendResult<String, EntityEvent>> sendToKafka(EntityEvent entityEvent) {
+        return send(TOPIC, entityEvent);
+    }
+
+    public CompletableFuture<SendResult<String, EntityEvent>> send(String topic, EntityEvent event) {
+        return send(topic, event, true);
+    }
+
+    /** For callers that retry failed sends themselves: a failure is timed but leaves the metadata alone. */
+    public CompletableFuture<SendResult<String, EntityEvent>> sendRetryable(String topic, EntityEvent event) {
+        return send(topic, event, false);
+    }
+
+    private CompletableFuture<SendResult<String, EntityEvent>> send(String topic,
+                                                                    EntityEvent event,
+                                                                    boolean markFailure) {
+        long start = System.nanoTime();
+        String key = event.getEntity() != null ? event.getEntity().getId() : event.getId();
+        CompletableFuture<SendResult<String, EntityEvent>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, event);
+        } catch (Exception ex) {
+            // serialization or buffer-full errors are thrown before a future exists
+            future = CompletableFuture.failedFuture(ex);
+        }
+        return future.whenComplete((result, ex) -> {
+            Timer.builder("entity.producer.send")
+                    .tag("topic", topic)
+                    .tag("result", ex == null ? "success" : "failure")
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (ex != null) {
+                log.error("Publishing {} for {} to {} failed", event.getOperation(), key, topic, ex);
+                if (markFailure) {
+                    markPublishFailed(event, topic, ex);
+                }
+            }
+        });
+    }
+
+    private void markPublishFailed(EntityEvent event, String topic, Throwable ex) {
+        EntityMetadata meta = event.getEntityMetadata();
+        if (meta == null) {
+            return;
+        }
+        String reason = "publish to " + topic + " failed: " + ex.getMessage();
+        long now = System.currentTimeMillis();
+        metaWriter.update(meta.toBuilder()
+                .esStatus("failure")
+                .firstFailureTime(meta.getFirstFailureTime() != null ? meta.getFirstFailureTime() : now)
+                .dlqReason(meta.getDlqReason() != null ? meta.getDlqReason() + "; " + reason : reason)
+                .build());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,179 @@
+package com.Packages.kafka;
+
+import com.Packages.model.EntityEvent;
+import com.Packages.model.OutboxEvent;
+import com.Packages.model.StreamLease;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the outbox written by KafkaSyncService in outbox mode.
+ * <p>
+ * Polls the oldest {@code batchSize} outbox documents, sends them all without
+ * waiting (the producer batches them per partition), then waits for the acks and
+ * deletes the prefix that was acked. Anything after the first failed send stays
+ * in the outbox and is sent again on the next poll, so delivery is
+ * at-least-once and per-entity order is kept.
+ * <p>
+ * Two relays would publish the same documents, possibly out of order, so only the
+ * holder of the {@code outbox-relay} lease in streamLease relays. The lease is
+ * renewed every {@code renew-ms} between batches and expires after
+ * {@code lease-ms}; the other instances retry it every {@code renew-ms} and take
+ * over once a holder has stopped or died.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final String LEASE_ID = "outbox-relay";
+
+    private final MongoOperations mongoOps;
+    private final EntityProducer producer;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollMs;
+    private final long leaseMs;
+    private final long renewMs;
+    private final String owner = UUID.randomUUID().toString();
+    private final ExecutorService relay = Executors.newSingleThreadExecutor();
+    private volatile boolean running = true;
+
+    public OutboxRelay(MongoOperations mongoOps,
+                       EntityProducer producer,
+                       MeterRegistry registry,
+                       @Value("${kafka.sync.outbox.relay.enabled:false}") boolean enabled,
+                       @Value("${kafka.sync.outbox.relay.batch-size:1000}") int batchSize,
+                       @Value("${kafka.sync.outbox.relay.poll-ms:20}") long pollMs,
+                       @Value("${kafka.sync.outbox.relay.lease-ms:30000}") long leaseMs,
+                       @Value("${kafka.sync.outbox.relay.renew-ms:10000}") long renewMs) {
+        this.mongoOps = mongoOps;
+        this.producer = producer;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollMs = pollMs;
+        this.leaseMs = leaseMs;
+        this.renewMs = renewMs;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            log.info("Starting outbox relay (batch {} every {} ms)", batchSize, pollMs);
+            relay.execute(this::relayLoop);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        relay.shutdown();
+        if (relay.awaitTermination(5, TimeUnit.SECONDS) && enabled) {
+            mongoOps.remove(myLease(), StreamLease.class);
+        }
+    }
+
+    private void relayLoop() {
+        long renewAt = 0;
+        while (running) {
+            try {
+                if (System.currentTimeMillis() >= renewAt) {
+                    if (!acquireLease()) {
+                        Thread.sleep(renewMs);
+                        continue;
+                    }
+                    renewAt = System.currentTimeMillis() + renewMs;
+                }
+                if (relayBatch() < batchSize) {
+                    Thread.sleep(pollMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbox relay failed, retrying in {} ms", pollMs, e);
+                try {
+                    Thread.sleep(pollMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // takes the lease, or renews it if this relay holds it already
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query free = new Query(Criteria.where("_id").is(LEASE_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(now)));
+        try {
+            return mongoOps.findAndModify(free,
+                    new Update().set("owner", owner).set("expiresAt", now.plusMillis(leaseMs)),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    StreamLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            // held by another live relay
+            return false;
+        }
+    }
+
+    private Query myLease() {
+        return new Query(Criteria.where("_id").is(LEASE_ID).and("owner").is(owner));
+    }
+
+    /** Returns how many outbox documents were published and removed. */
+    int relayBatch() throws InterruptedException {
+        Query oldest = new Query().with(Sort.by("_id")).limit(batchSize);
+        List<OutboxEvent> batch = mongoOps.find(oldest, OutboxEvent.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<SendResult<String, EntityEvent>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent entry : batch) {
+            sends.add(producer.sendRetryable(entry.getTopic(), entry.getEvent()));
+        }
+        List<String> acked = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sends.get(i).join();
+                acked.add(batch.get(i).getId());
+            } catch (Exception e) {
+                // EntityProducer has logged it; the rest of the batch is sent again next poll
+                break;
+            }
+        }
+        if (!acked.isEmpty()) {
+            mongoOps.remove(new Query(Criteria.where("_id").in(acked)), OutboxEvent.class);
+        }
+        Counter.builder("outbox.relay.published").register(registry).increment(acked.size());
+        if (acked.size() < batch.size()) {
+            Counter.builder("outbox.relay.failed").register(registry).increment(batch.size() - acked.size());
+            Thread.sleep(pollMs);
+        }
+        return acked.size();
+    }
+}
@@ -0,0 +1,121 @@
+package com.Packages.metrics;
+
+import com.Packages.model.EntityMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Live sync metrics shared by all four approaches, tagged by {@code approach}
+ * (direct_data_transfer, kafka_sync, hybrid_sync, change_stream) and
+ * {@code operation}:
+ * <ul>
+ *   <li>{@code sync.mongo.write}: Mongo write latency, tagged by result;</li>
+ *   <li>{@code sync.es.write}: ES write latency, tagged by result; bulk requests use operation {@code bulk};</li>
+ *   <li>{@code sync.lag}: Mongo write to successful ES write, DLQ retries included;</li>
+ *   <li>{@code sync.dlq}: events published to a DLQ topic;</li>
+ *   <li>{@code sync.es.stale}: versioned ES writes skipped because ES already had that version or a newer one;</li>
+ *   <li>{@code sync.retry}: DLQ retry attempts, tagged by result.</li>
+ * </ul>
+ * Percentiles and histogram buckets are configured per service with
+ * {@code management.metrics.distribution.*.sync}.
+ */
+@Component
+public class SyncMetrics {
+    private final MeterRegistry registry;
+    private final Map<String, String> approachTags = new ConcurrentHashMap<>();
+
+    public SyncMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T timeMongoWrite(String approach, String operation, Supplier<T> write) {
+        return time("sync.mongo.write", approach, operation, write);
+    }
+
+    public <T> T timeEsWrite(String approach, String operation, Supplier<T> write) {
+        return time("sync.es.write", approach, operation, write);
+    }
+
+    /** One bulk request on behalf of {@code approach}. */
+    public void recordEsBulk(String approach, long elapsedNanos, boolean success) {
+        timer("sync.es.write", approach, "bulk", success)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Call once the record's ES write succeeded and esSyncMillis is set. */
+    public void recordSynced(EntityMetadata meta) {
+        if (meta == null || meta.getMongoWriteMillis() == null || meta.getEsSyncMillis() == null) {
+            return;
+        }
+        long lag = Math.max(0, meta.getEsSyncMillis() - meta.getMongoWriteMillis());
+        Timer.builder("sync.lag")
+                .tag("approach", approachTag(meta.getApproach()))
+                .tag("operation", String.valueOf(meta.getOperation()))
+                .register(registry)
+                .record(lag, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordDlq(EntityMetadata meta) {
+        counter("sync.dlq", meta).increment();
+    }
+
+    /** Call when a versioned ES write got a 409; the record still counts as synced. */
+    public void recordStale(EntityMetadata meta) {
+        counter("sync.es.stale", meta).increment();
+    }
+
+    /** {@code result} is success, failure, or the retry engine's outcome for a failed attempt. */
+    public void recordRetry(EntityMetadata meta, String result) {
+        Counter.builder("sync.retry")
+                .tag("approach", approachTag(meta.getApproach()))
+                .tag("operation", String.valueOf(meta.getOperation()))
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    private <T> T time(String name, String approach, String operation, Supplier<T> write) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = write.get();
+            success = true;
+            return result;
+        } finally {
+            timer(name, approach, operation, success)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String name, String approach, String operation, boolean success) {
+        return Timer.builder(name)
+                .tag("approach", approachTag(approach))
+                .tag("operation", operation)
+                .tag("result", success ? "success" : "failure")
+                .register(registry);
+    }
+
+    private Counter counter(String name, EntityMetadata meta) {
+        return Counter.builder(name)
+                .tag("approach", approachTag(meta.getApproach()))
+                .tag("operation", String.valueOf(meta.getOperation()))
+                .register(registry);
+    }
+
+    // "Direct Data Transfer" -> direct_data_transfer
+    private String approachTag(String approach) {
+        if (approach == null) {
+            return "unknown";
+        }
+        return approachTags.computeIfAbsent(approach,
+                a -> a.trim().toLowerCase(Locale.ROOT).replace(' ', '_'));
+    }
+}
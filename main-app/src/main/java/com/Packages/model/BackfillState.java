@@ -0,0 +1,49 @@
+package com.Packages.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Checkpoint of the change-stream bootstrap: the cluster time the snapshot was
+ * taken at, and how far each partition of the collection scan has got.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("backfillState")
+public class BackfillState {
+    @Id
+    private String id;
+    /** running or done */
+    private String status;
+    /** BsonTimestamp value the change stream starts at once the scan is done */
+    private Long startAtOperationTime;
+    /** refresh_interval of the index before the backfill, restored afterwards */
+    private String originalRefreshInterval;
+    private List<Partition> partitions;
+    private Instant startedAt;
+    private Instant lastUpdated;
+    private Instant finishedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Partition {
+        private boolean objectIds;
+        private String from;
+        private String to;
+        /** last _id loaded into ES; the scan resumes after it */
+        private String lastId;
+        private long copied;
+        private long failed;
+        private boolean done;
+    }
+}
@@ -19,5 +19,7 @@ public class ChangeStreamState {
     @Id
     private String id;
     private org.bson.Document resumeToken;
+    // BsonTimestamp value of the change the token belongs to, to compare checkpoints
+    private Long clusterTime;
     private Instant    lastUpdated;
 }
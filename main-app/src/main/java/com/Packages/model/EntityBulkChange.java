@@ -0,0 +1,49 @@
+package com.Packages.model;
+
+import com.Packages.dto.BulkEntityRequest;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One item of a bulk call on its way through Mongo and ES. The Mongo bulk fills
+ * in {@code status} and {@code entity}: the new state after a create or update,
+ * the removed document after a delete.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityBulkChange {
+    private String operation;
+    private String id;
+    private String name;
+    private Entity entity;
+    private int status;
+    private String esStatus;
+    private String error;
+
+    public static EntityBulkChange of(BulkEntityRequest request) {
+        return EntityBulkChange.builder()
+                .operation(request.getOperation())
+                .id(request.getId())
+                .name(request.getName())
+                .build();
+    }
+
+    public boolean isApplied() {
+        return status >= 200 && status < 300;
+    }
+
+    public void fail(int status, String error) {
+        this.status = status;
+        this.error = error;
+    }
+
+    // a delete is sequenced one past the version it removed, as on the single-item paths
+    public long operationSeq() {
+        long version = entity.getVersion() != null ? entity.getVersion() : 0;
+        return "delete".equals(operation) ? version + 1 : version;
+    }
+}
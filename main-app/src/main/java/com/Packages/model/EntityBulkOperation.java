@@ -0,0 +1,19 @@
+package com.Packages.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityBulkOperation {
+    private String operation;
+    private String index;
+    private String id;
+    private Entity entity;
+    // external version; null keeps the unversioned create/update/delete semantics
+    private Long version;
+}
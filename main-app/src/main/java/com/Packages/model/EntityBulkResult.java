@@ -0,0 +1,24 @@
+package com.Packages.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityBulkResult {
+    private String id;
+    private String operation;
+    private int status;
+    private boolean success;
+    private boolean versionConflict;
+    private String reason;
+
+    // 429 is bulk-queue back-pressure, so it is retried like a 5xx
+    public boolean isClientError() {
+        return !success && status >= 400 && status < 500 && status != 429;
+    }
+}
@@ -0,0 +1,27 @@
+package com.Packages.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An EntityEvent waiting in the outbox for the relay to publish it. Written in
+ * the same transaction as the Entity change; removed once Kafka has acked it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("outbox")
+public class OutboxEvent {
+    @Id
+    private String id;
+    private String topic;
+    private EntityEvent event;
+    private Instant createdAt;
+}
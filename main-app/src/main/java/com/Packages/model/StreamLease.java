@@ -0,0 +1,29 @@
+package com.Packages.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A change-stream slice held by one stream-service instance ({@code slice-<n>}),
+ * the heartbeat of a live instance ({@code instance-<owner>}), the right to
+ * run the backfill ({@code backfill}), or the right to publish the Kafka sync
+ * outbox ({@code outbox-relay}, held by a main-app instance). Each is free again
+ * once {@code expiresAt} has passed without a renewal.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("streamLease")
+public class StreamLease {
+    @Id
+    private String id;
+    private String owner;
+    private Instant expiresAt;
+}
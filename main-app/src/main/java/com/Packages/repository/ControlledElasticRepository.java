@@ -3,7 +3,9 @@ package com.Packages.repository;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.ErrorResponse;
-import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkOperation;
+import com.Packages.model.EntityBulkResult;
+import com.Packages.resilience.ElasticGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
@@ -11,7 +13,9 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 @Repository
@@ -23,8 +27,8 @@ public class ControlledElasticRepository extends EntityElasticRepository {
     private final Random random = new Random();
     private static final Logger log =
             LoggerFactory.getLogger(ControlledElasticRepository.class);
-    public ControlledElasticRepository(ElasticsearchClient es) {
-        super(es);
+    public ControlledElasticRepository(ElasticsearchClient es, ElasticGuard guard) {
+        super(es, guard);
         log.info(">>>  ControlledElasticRepository ACTIVE");
     }
     private void simulate(String opName) {
@@ -44,53 +48,51 @@ public class ControlledElasticRepository extends EntityElasticRepository {
             throw new RuntimeException("Simulated ES-down failure on " + opName);
         }
     }
-    @Override
-    public Entity createEntity(String indexName, Entity entity) {
-        simulate("create");
-        return super.createEntity(indexName, entity);
-    }
-
-    @Override
-    public Entity updateEntity(String indexName, String id, Entity entity, LocalDateTime ct) {
-        simulate("update");
-        return super.updateEntity(indexName, id, entity, ct);
-    }
-    @Override
-    public boolean deleteEntity(String indexName, String id) {
-        simulate("delete");
-        return super.deleteEntity(indexName, id);
-    }
-
-    @Override
-    public Entity createEntityWithVersion(
-            String indexName,
-            String documentId,
-            Entity entity,
-            long version
-    ) throws IOException {
-        simulate("create(v)");
-        return super.createEntityWithVersion(indexName, documentId, entity, version);
+    // item-level counterpart of simulate(): returns the injected failure, or null to let the item through
+    private EntityBulkResult simulateItem(EntityBulkOperation op) {
+        double r = random.nextDouble();
+        if (r < successRate) {
+            return null;
+        }
+        double frac = random.nextDouble();
+        String opName = "bulk " + op.getOperation();
+        EntityBulkResult.EntityBulkResultBuilder failed = EntityBulkResult.builder()
+                .id(op.getId())
+                .operation(op.getOperation())
+                .success(false);
+        if (frac < failureRate) {
+            return failed.status(400)
+                    .reason("Simulated invalid‐data failure on " + opName)
+                    .build();
+        }
+        return failed.status(503)
+                .reason("Simulated ES-down failure on " + opName)
+                .build();
     }
 
     @Override
-    public Entity updateEntityWithVersion(
-            String indexName,
-            String documentId,
-            Entity entity,
-            long version
-    ) throws IOException {
-        simulate("update(v)");
-        return super.updateEntityWithVersion(indexName, documentId, entity, version);
+    protected void beforeCall(String operation) {
+        simulate(operation);
     }
 
     @Override
-    public boolean deleteEntityWithVersion(
-            String indexName,
-            String documentId,
-            long version
-    ) throws IOException {
-        simulate("delete(v)");
-        return super.deleteEntityWithVersion(indexName, documentId, version);
+    public List<EntityBulkResult> bulkWrite(List<EntityBulkOperation> operations) throws IOException {
+        EntityBulkResult[] results = new EntityBulkResult[operations.size()];
+        List<EntityBulkOperation> forwarded = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            EntityBulkResult injected = simulateItem(operations.get(i));
+            if (injected != null) {
+                results[i] = injected;
+            } else {
+                forwarded.add(operations.get(i));
+                slots.add(i);
+            }
+        }
+        List<EntityBulkResult> real = super.bulkWrite(forwarded);
+        for (int i = 0; i < real.size(); i++) {
+            results[slots.get(i)] = real.get(i);
+        }
+        return Arrays.asList(results);
     }
 }
-
@@ -1,29 +1,61 @@
 package com.Packages.repository;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch._types.Time;
 import co.elastic.clients.elasticsearch._types.VersionType;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.DeleteRequest;
 import co.elastic.clients.elasticsearch.core.DeleteResponse;
+import co.elastic.clients.elasticsearch.core.GetResponse;
 import co.elastic.clients.elasticsearch.core.IndexRequest;
-import co.elastic.clients.elasticsearch.core.IndexResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.UpdateRequest;
-import co.elastic.clients.elasticsearch.core.UpdateResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
 import com.Packages.model.Entity;
-import jakarta.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Qualifier;
+import com.Packages.model.EntityBulkOperation;
+import com.Packages.model.EntityBulkResult;
+import com.Packages.resilience.ElasticGuard;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public class EntityElasticRepository {
     private final  ElasticsearchClient client;
+    private final ElasticGuard guard;
 
-    public EntityElasticRepository(ElasticsearchClient client) {
+    public EntityElasticRepository(ElasticsearchClient client, ElasticGuard guard) {
         this.client = client;
+        this.guard = guard;
     }
+
+    /** Runs inside the guard right before each single-document request; a test seam. */
+    protected void beforeCall(String operation) {
+    }
+
+    private <T> T guarded(String operation, ElasticGuard.Call<T> call) throws IOException {
+        return guard.call(() -> {
+            beforeCall(operation);
+            return call.run();
+        });
+    }
+
+    /**
+     * Unversioned writes. Failures are thrown, not logged and swallowed: an I/O error
+     * as {@link UncheckedIOException}, an error response as {@link ElasticsearchException},
+     * and a call shed by the guard as {@link com.Packages.resilience.ElasticUnavailableException}.
+     */
     public Entity createEntity(String indexName, Entity entity) {
         try {
             IndexRequest<Entity> req = IndexRequest.of(i -> i
@@ -31,9 +63,9 @@ public class EntityElasticRepository {
                     .id(entity.getId())
                     .document(entity)
             );
-            IndexResponse resp = client.index(req);
-        } catch (Exception e) {
-            e.printStackTrace();
+            guarded("create", () -> client.index(req));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
         return entity;
     }
@@ -48,26 +80,70 @@ public class EntityElasticRepository {
                     .doc(entity)
                     .docAsUpsert(true)
             );
-            UpdateResponse<Entity> resp = client.update(req, Entity.class);
-        } catch (Exception e) {
-            e.printStackTrace();
+            guarded("update", () -> client.update(req, Entity.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
         return entity;
     }
 
     public boolean deleteEntity(String indexName, String documentId) {
         try {
-            DeleteResponse resp = client.delete(d -> d
+            DeleteResponse resp = guarded("delete", () -> client.delete(d -> d
                     .index(indexName)
                     .id(documentId)
-            );
+            ));
             Result r = resp.result();
             return r == Result.Deleted  || r == Result.NotFound;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
+    /**
+     * Applies one create/update/delete with {@code version} as the external version:
+     * the Mongo version, or the removed version + 1 for a delete. Creates and updates
+     * index the full document. A 409 means ES already holds this version or a newer
+     * one, so the write is stale and skipped; that is the expected outcome of a
+     * replay or an out-of-order retry and is reported as {@code false}, not thrown.
+     * A null version (events from before versioning) uses the unversioned calls.
+     */
+    public boolean writeVersioned(String indexName, String operation, String documentId,
+                                  Entity entity, Long version) {
+        if (version == null) {
+            switch (operation) {
+                case "create" -> createEntity(indexName, entity);
+                case "update" -> updateEntity(indexName, documentId, entity, entity.getCreateTime());
+                case "delete" -> deleteEntity(indexName, documentId);
+                default -> throw new IllegalArgumentException("Unknown operation: " + operation);
+            }
+            return true;
+        }
+        try {
+            switch (operation) {
+                case "create", "update" -> guarded(operation + "(v)", () -> client.index(i -> i
+                        .index(indexName)
+                        .id(documentId)
+                        .version(version)
+                        .versionType(VersionType.External)
+                        .document(entity)));
+                case "delete" -> guarded("delete(v)", () -> client.delete(d -> d
+                        .index(indexName)
+                        .id(documentId)
+                        .version(version)
+                        .versionType(VersionType.External)));
+                default -> throw new IllegalArgumentException("Unknown operation: " + operation);
+            }
+            return true;
+        } catch (ElasticsearchException e) {
+            if (e.status() == 409) {
+                return false;
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public Entity createEntityWithVersion(String indexName,
                                           String documentId,
                                           Entity entity,
@@ -79,7 +155,7 @@ public class EntityElasticRepository {
                 .versionType(VersionType.External)
                 .document(entity)
         );
-        IndexResponse resp = client.index(req);
+        guarded("create(v)", () -> client.index(req));
         return entity;
     }
     public Entity updateEntityWithVersion(
@@ -88,13 +164,13 @@ public class EntityElasticRepository {
             Entity entity,
             long version
     ) throws IOException {
-        client.index(i -> i
+        guarded("update(v)", () -> client.index(i -> i
                 .index(indexName)
                 .id(documentId)
                 .version(version)                  // external version
                 .versionType(VersionType.External)
                 .document(entity)
-        );
+        ));
         return entity;
     }
 
@@ -107,7 +183,163 @@ public class EntityElasticRepository {
                 .version(version)
                 .versionType(VersionType.External)
         );
-        DeleteResponse resp = client.delete(req);
+        DeleteResponse resp = guarded("delete(v)", () -> client.delete(req));
         return resp.result().name().equalsIgnoreCase("Deleted");
     }
+
+    /** Realtime get by id; empty when the document or the index does not exist. */
+    public Optional<Entity> findById(String indexName, String documentId) throws IOException {
+        try {
+            GetResponse<Entity> resp = guard.call(() -> client.get(g -> g
+                    .index(indexName)
+                    .id(documentId), Entity.class));
+            return resp.found() ? Optional.ofNullable(resp.source()) : Optional.empty();
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    /** Full-text match on name, or every document when {@code text} is blank. */
+    public List<Entity> searchByName(String indexName, String text, int from, int size) throws IOException {
+        try {
+            SearchResponse<Entity> resp = guard.call(() -> client.search(s -> s
+                    .index(indexName)
+                    .from(from)
+                    .size(size)
+                    .query(q -> text == null || text.isBlank()
+                            ? q.matchAll(m -> m)
+                            : q.match(m -> m.field("name").query(text))), Entity.class));
+            List<Entity> hits = new ArrayList<>(resp.hits().hits().size());
+            for (Hit<Entity> hit : resp.hits().hits()) {
+                if (hit.source() != null) {
+                    hits.add(hit.source());
+                }
+            }
+            return hits;
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return List.of();
+            }
+            throw e;
+        }
+    }
+
+    /** Current index.refresh_interval, or null when the index does not exist or uses the default. */
+    public String getRefreshInterval(String indexName) throws IOException {
+        if (!client.indices().exists(e -> e.index(indexName)).value()) {
+            return null;
+        }
+        IndexSettings settings = client.indices()
+                .getSettings(g -> g.index(indexName).name("index.refresh_interval"))
+                .get(indexName)
+                .settings();
+        if (settings == null) {
+            return null;
+        }
+        Time interval = settings.refreshInterval() != null ? settings.refreshInterval()
+                : settings.index() != null ? settings.index().refreshInterval() : null;
+        return interval != null ? interval.time() : null;
+    }
+
+    /** Sets index.refresh_interval ("-1" disables refresh), creating the index if needed. */
+    public void setRefreshInterval(String indexName, String interval) throws IOException {
+        if (!client.indices().exists(e -> e.index(indexName)).value()) {
+            client.indices().create(c -> c
+                    .index(indexName)
+                    .settings(s -> s.refreshInterval(t -> t.time(interval))));
+            return;
+        }
+        client.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s.refreshInterval(t -> t.time(interval))));
+    }
+
+    public void refresh(String indexName) throws IOException {
+        client.indices().refresh(r -> r.index(indexName));
+    }
+
+    /**
+     * Sends a mixed list of create/update/delete operations as one _bulk request.
+     * Results come back in the same order as the operations, one per item, so
+     * callers can route each outcome (success, version conflict, failure)
+     * back to the event it came from. Transport failures are thrown as a whole.
+     */
+    public List<EntityBulkResult> bulkWrite(List<EntityBulkOperation> operations) throws IOException {
+        if (operations.isEmpty()) {
+            return List.of();
+        }
+        List<BulkOperation> ops = new ArrayList<>(operations.size());
+        for (EntityBulkOperation op : operations) {
+            ops.add(toBulkOperation(op));
+        }
+        BulkResponse resp = bulk(ops);
+        List<BulkResponseItem> items = resp.items();
+        List<EntityBulkResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(toResult(operations.get(i), items.get(i)));
+        }
+        return results;
+    }
+
+    // 429/5xx items count as an overload signal even though the request itself succeeded;
+    // the latency of a large bulk is normal and is not one
+    private BulkResponse bulk(List<BulkOperation> operations) throws IOException {
+        BulkRequest req = BulkRequest.of(b -> b.operations(operations));
+        return guard.callBulk(() -> client.bulk(req),
+                resp -> resp.items().stream().anyMatch(i -> ElasticGuard.isOverload(i.status())));
+    }
+
+    private BulkOperation toBulkOperation(EntityBulkOperation op) {
+        String idx = op.getIndex();
+        String id = op.getId();
+        Entity ent = op.getEntity();
+        Long version = op.getVersion();
+        return switch (op.getOperation()) {
+            case "create" -> version != null
+                    ? versionedIndexOperation(idx, id, ent, version)
+                    : BulkOperation.of(b -> b.index(i -> i.index(idx).id(id).document(ent)));
+            case "update" -> version != null
+                    ? versionedIndexOperation(idx, id, ent, version)
+                    : BulkOperation.of(b -> b.update(u -> u
+                            .index(idx)
+                            .id(id)
+                            .action(a -> a.doc(ent).docAsUpsert(true))));
+            case "delete" -> version != null
+                    ? BulkOperation.of(b -> b.delete(d -> d
+                            .index(idx)
+                            .id(id)
+                            .version(version)
+                            .versionType(VersionType.External)))
+                    : BulkOperation.of(b -> b.delete(d -> d.index(idx).id(id)));
+            default -> throw new IllegalArgumentException("Unknown operation: " + op.getOperation());
+        };
+    }
+
+    private BulkOperation versionedIndexOperation(String idx, String id, Entity ent, long version) {
+        return BulkOperation.of(b -> b.index(i -> i
+                .index(idx)
+                .id(id)
+                .version(version)
+                .versionType(VersionType.External)
+                .document(ent)));
+    }
+
+    private EntityBulkResult toResult(EntityBulkOperation op, BulkResponseItem item) {
+        int status = item.status();
+        boolean missingDelete = op.getOperation().equals("delete") && status == 404;
+        // a versioned write that lost to a newer (or the same) version is a no-op, not a failure
+        boolean stale = op.getVersion() != null && status == 409;
+        boolean success = item.error() == null || missingDelete || stale;
+        return EntityBulkResult.builder()
+                .id(op.getId())
+                .operation(op.getOperation())
+                .status(status)
+                .success(success)
+                .versionConflict(status == 409)
+                .reason(success ? null : item.error().reason())
+                .build();
+    }
 }
@@ -9,6 +9,7 @@ import co.elastic.clients.elasticsearch._types.SortOptions;
 import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.*;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
 import com.Packages.model.Entity;
 import com.Packages.model.EntityMetadata;
 import com.Packages.model.EntityMetadataversion;
@@ -16,6 +17,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+
+import java.io.IOException;
+import java.util.List;
+
 @Repository
 public class EntityMetadataRepository {
     private final ElasticsearchClient elasticsearchClient;
@@ -37,6 +42,31 @@ public class EntityMetadataRepository {
             e.printStackTrace();
         }
     }
+    // first write of a record that another service may already have upserted; a 409 means it lost that race
+    public void create(EntityMetadata entityMetadata){
+        if(entityMetadata == null)
+            return ;
+        try {
+            CreateRequest<EntityMetadata> request = CreateRequest.of(c -> c
+                    .index("entity_metadata")
+                    .id(entityMetadata.getMetaId())
+                    .document(entityMetadata)
+            );
+            elasticsearchClient.create(request);
+        }
+        catch (ElasticsearchException e){
+            if (e.status() != 409) {
+                e.printStackTrace();
+            }
+        }
+        catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+    public BulkResponse bulk(List<BulkOperation> operations) throws IOException {
+        BulkRequest request = BulkRequest.of(b -> b.operations(operations));
+        return elasticsearchClient.bulk(request);
+    }
     public void saveversion(EntityMetadataversion entityMetadataversion){
         if(entityMetadataversion == null)
             return ;
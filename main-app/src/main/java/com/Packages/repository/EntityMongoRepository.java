@@ -1,9 +1,15 @@
 package com.Packages.repository;
 
 import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkChange;
 import com.Packages.repositoryinterface.MongoRepositoryInterface;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -11,10 +17,20 @@ import org.springframework.data.mongodb.core.query.Query;        // Spring‐Dat
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public class EntityMongoRepository {
+    private static final int DUPLICATE_KEY = 11000;
     private final MongoRepositoryInterface mongoRepositoryInterface;
     private final MongoOperations mongoOps;
 
@@ -38,11 +54,195 @@ public class EntityMongoRepository {
     }
 
     public boolean deleteEntity(String documentId) {
-        if (mongoRepositoryInterface.existsById(documentId)) {
-            mongoRepositoryInterface.deleteById(documentId);
-            return true;
+        return findAndRemoveEntity(documentId) != null;
+    }
+
+    /**
+     * Sets name and modifiedTime and increments the version in one round trip.
+     * Returns the updated document, or null if the id does not exist.
+     */
+    public Entity findAndModifyEntity(String documentId, String name, LocalDateTime modifiedTime) {
+        Query q = Query.query(Criteria.where("_id").is(documentId));
+        Update u = new Update()
+                .set("name", name)
+                .set("modifiedTime", modifiedTime)
+                .inc("version", 1);
+        return mongoOps.findAndModify(q, u,
+                FindAndModifyOptions.options().returnNew(true),
+                Entity.class);
+    }
+
+    /**
+     * Raises the version of a document to {@code version} if it is lower, leaving its
+     * fields as they are. Returns the document as it is afterwards, or null if absent.
+     */
+    public Entity raiseVersion(String documentId, long version) {
+        Query q = Query.query(Criteria.where("_id").is(documentId)
+                .orOperator(Criteria.where("version").lt(version), Criteria.where("version").exists(false)));
+        Entity raised = mongoOps.findAndModify(q, new Update().set("version", version),
+                FindAndModifyOptions.options().returnNew(true),
+                Entity.class);
+        return raised != null ? raised : getEntity(documentId).orElse(null);
+    }
+
+    /** Deletes the document in one round trip and returns it as it was before, or null if absent. */
+    public Entity findAndRemoveEntity(String documentId) {
+        Query q = Query.query(Criteria.where("_id").is(documentId));
+        return mongoOps.findAndRemove(q, Entity.class);
+    }
+
+    /**
+     * Applies a batch of creates and updates with one unordered bulkWrite, and its
+     * deletes one by one, and fills in each change's status and entity.
+     * <p>
+     * The current documents are read first, so a missing id (404) or an existing
+     * one on create (409) is known per item. Updates and deletes are then guarded
+     * by the version that was read. Mongo only reports how many guarded updates
+     * matched, so if any lost a race with a concurrent writer, those ids are read
+     * again and each lost one is reported as 409. A lost delete cannot be told apart
+     * that way, since the document is gone either way, so deletes use a guarded
+     * findAndRemove each, which says whether this batch removed the document.
+     * An id may appear only once per batch.
+     */
+    public List<EntityBulkChange> bulkApply(List<EntityBulkChange> changes) {
+        Set<String> seen = new HashSet<>();
+        List<String> ids = new ArrayList<>();
+        for (EntityBulkChange c : changes) {
+            if (!List.of("create", "update", "delete").contains(String.valueOf(c.getOperation()))) {
+                c.fail(400, "Unknown operation: " + c.getOperation());
+            } else if (c.getId() == null && !c.getOperation().equals("create")) {
+                c.fail(400, "id is required for " + c.getOperation());
+            } else if (c.getId() != null && !seen.add(c.getId())) {
+                c.fail(400, "id appears more than once in the batch");
+            } else if (c.getId() != null) {
+                ids.add(c.getId());
+            }
+        }
+        Map<String, Entity> current = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Entity e : mongoOps.find(Query.query(Criteria.where("_id").in(ids)), Entity.class)) {
+                current.put(e.getId(), e);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoOps.bulkOps(BulkOperations.BulkMode.UNORDERED, Entity.class);
+        List<EntityBulkChange> queued = new ArrayList<>();
+        List<EntityBulkChange> deletes = new ArrayList<>();
+        for (EntityBulkChange c : changes) {
+            if (c.getStatus() != 0) {
+                continue;
+            }
+            Entity existing = c.getId() != null ? current.get(c.getId()) : null;
+            switch (c.getOperation()) {
+                case "create" -> {
+                    if (existing != null) {
+                        c.fail(409, "Entity already exists: " + c.getId());
+                        continue;
+                    }
+                    if (c.getId() == null) {
+                        c.setId(new ObjectId().toHexString());
+                    }
+                    c.setEntity(new Entity(c.getId(), c.getName(), now, now, 0L));
+                    c.setStatus(201);
+                    bulk.insert(c.getEntity());
+                }
+                case "update" -> {
+                    if (existing == null) {
+                        c.fail(404, "Entity not found: " + c.getId());
+                        continue;
+                    }
+                    long version = existing.getVersion() != null ? existing.getVersion() : 0;
+                    c.setEntity(new Entity(c.getId(), c.getName(), existing.getCreateTime(), now, version + 1));
+                    c.setStatus(200);
+                    bulk.updateOne(guard(existing), new Update()
+                            .set("name", c.getName())
+                            .set("modifiedTime", now)
+                            .inc("version", 1));
+                }
+                default -> {
+                    if (existing == null) {
+                        c.fail(404, "Entity not found: " + c.getId());
+                        continue;
+                    }
+                    c.setEntity(existing);
+                    deletes.add(c);
+                    continue;
+                }
+            }
+            queued.add(c);
+        }
+        if (!queued.isEmpty()) {
+            applyBulk(bulk, queued, now);
+        }
+        for (EntityBulkChange c : deletes) {
+            try {
+                if (mongoOps.findAndRemove(guard(c.getEntity()), Entity.class) != null) {
+                    c.setStatus(200);
+                } else {
+                    c.fail(409, "Entity was modified concurrently: " + c.getId());
+                }
+            } catch (RuntimeException ex) {
+                c.fail(500, ex.getMessage());
+            }
+        }
+        return changes;
+    }
+
+    private void applyBulk(BulkOperations bulk, List<EntityBulkChange> queued, LocalDateTime now) {
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException ex) {
+            for (BulkWriteError error : ex.getErrors()) {
+                EntityBulkChange c = queued.get(error.getIndex());
+                c.fail(error.getCode() == DUPLICATE_KEY ? 409 : 500, error.getMessage());
+            }
+            result = ex.getResult();
+        }
+        long guardedQueued = queued.stream()
+                .filter(c -> c.isApplied() && c.getOperation().equals("update"))
+                .count();
+        if (result.getMatchedCount() < guardedQueued) {
+            markLostRaces(queued, now);
+        }
+    }
+
+    private Query guard(Entity existing) {
+        Criteria c = Criteria.where("_id").is(existing.getId());
+        return Query.query(existing.getVersion() != null
+                ? c.and("version").is(existing.getVersion())
+                : c.and("version").exists(false));
+    }
+
+    private void markLostRaces(List<EntityBulkChange> queued, LocalDateTime now) {
+        List<String> ids = queued.stream()
+                .filter(c -> c.isApplied() && c.getOperation().equals("update"))
+                .map(EntityBulkChange::getId)
+                .toList();
+        Map<String, Entity> stored = new HashMap<>();
+        Query q = Query.query(Criteria.where("_id").in(ids));
+        q.fields().include("_id", "name", "modifiedTime", "version");
+        for (Entity e : mongoOps.find(q, Entity.class)) {
+            stored.put(e.getId(), e);
+        }
+        // Mongo keeps dates to the millisecond
+        LocalDateTime written = now.truncatedTo(ChronoUnit.MILLIS);
+        for (EntityBulkChange c : queued) {
+            if (!c.isApplied() || !c.getOperation().equals("update")) {
+                continue;
+            }
+            // a concurrent writer also bumps the version by one, so an update won only if the
+            // document still carries the values this batch wrote
+            Entity e = stored.get(c.getId());
+            boolean won = e != null
+                    && Objects.equals(e.getVersion(), c.getEntity().getVersion())
+                    && written.equals(e.getModifiedTime())
+                    && Objects.equals(e.getName(), c.getName());
+            if (!won) {
+                c.fail(409, "Entity was modified concurrently: " + c.getId());
+            }
         }
-        return false;
     }
 
 //    public long nextSequence(String entityId) {
@@ -0,0 +1,242 @@
+package com.Packages.repository;
+
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.Packages.model.EntityMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Front door for every entity_metadata write on the sync paths.
+ * In async mode records are queued in a bounded buffer and flushed with
+ * _bulk when the batch size or flush interval is reached. A full buffer
+ * blocks the caller for up to the offer timeout; after that the caller
+ * flushes the buffer itself and queues again, so nothing is dropped and
+ * writes to a record reach ES in the order they were made. Records are
+ * copied when queued, so later changes by the caller are not picked up.
+ * The buffer drains on shutdown.
+ * <p>
+ * A flush that fails as a whole, or items rejected with 429/5xx, are retried
+ * up to {@code max-retries} times before the next batch is sent; a retried
+ * item takes the later writes to the same record in the batch with it, so
+ * their order holds. Records still failing after that, and items rejected
+ * with another 4xx, are logged and lost.
+ */
+@Component
+public class MetadataWriter {
+    private static final Logger log = LoggerFactory.getLogger(MetadataWriter.class);
+    private static final String INDEX = "entity_metadata";
+
+    private enum Mode { SAVE, UPDATE, CREATE }
+
+    private record PendingWrite(Mode mode, EntityMetadata meta) { }
+
+    private final EntityMetadataRepository metaRepo;
+    private final boolean async;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final BlockingQueue<PendingWrite> queue;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor();
+    private volatile boolean closed;
+
+    public MetadataWriter(EntityMetadataRepository metaRepo,
+                          @Value("${metadata.writer.async:true}") boolean async,
+                          @Value("${metadata.writer.capacity:10000}") int capacity,
+                          @Value("${metadata.writer.batch-size:500}") int batchSize,
+                          @Value("${metadata.writer.flush-interval-ms:200}") long flushIntervalMs,
+                          @Value("${metadata.writer.offer-timeout-ms:50}") long offerTimeoutMs,
+                          @Value("${metadata.writer.max-retries:3}") int maxRetries,
+                          @Value("${metadata.writer.retry-delay-ms:100}") long retryDelayMs) {
+        this.metaRepo = metaRepo;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.retryDelayMs = retryDelayMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    void start() {
+        if (async) {
+            flusher.scheduleWithFixedDelay(this::flush,
+                    flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        closed = true;
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /** Full overwrite of the record, like {@link EntityMetadataRepository#save}. */
+    public void save(EntityMetadata meta) {
+        write(Mode.SAVE, meta);
+    }
+
+    /** Partial upsert of the record, like {@link EntityMetadataRepository#update}. */
+    public void update(EntityMetadata meta) {
+        write(Mode.UPDATE, meta);
+    }
+
+    /**
+     * First write of a record whose outcome is later written by another service
+     * (Kafka consumer, DLQ consumer). With buffering that later write can land
+     * first, so this one must never overwrite it.
+     */
+    public void saveIfAbsent(EntityMetadata meta) {
+        write(Mode.CREATE, meta);
+    }
+
+    private void write(Mode mode, EntityMetadata meta) {
+        if (meta == null) {
+            return;
+        }
+        if (!async) {
+            writeNow(new PendingWrite(mode, meta));
+            return;
+        }
+        if (closed) {
+            // anything still buffered is older than this write
+            flush();
+            writeNow(new PendingWrite(mode, meta));
+            return;
+        }
+        PendingWrite write = new PendingWrite(mode, meta.toBuilder().build());
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (queue.offer(write, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            // buffer full: drain it on this thread rather than writing around it
+            flush();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    private void writeNow(PendingWrite write) {
+        EntityMetadata meta = write.meta();
+        switch (write.mode()) {
+            case SAVE -> metaRepo.save(meta);
+            case UPDATE -> metaRepo.update(meta.getMetaId(), meta);
+            case CREATE -> metaRepo.create(meta);
+        }
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<PendingWrite> batch) {
+        List<PendingWrite> pending = batch;
+        for (int attempt = 0; ; attempt++) {
+            pending = sendOnce(pending);
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (attempt >= maxRetries) {
+                log.error("Dropping {} metadata writes after {} retries", pending.size(), maxRetries);
+                return;
+            }
+            try {
+                Thread.sleep(retryDelayMs * (attempt + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Dropping {} metadata writes, interrupted while retrying", pending.size());
+                return;
+            }
+        }
+    }
+
+    /** Sends one _bulk and returns the writes to retry, in their original order. */
+    private List<PendingWrite> sendOnce(List<PendingWrite> batch) {
+        List<BulkOperation> ops = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            ops.add(toBulkOperation(write));
+        }
+        BulkResponse resp;
+        try {
+            resp = metaRepo.bulk(ops);
+        } catch (Exception e) {
+            log.warn("Metadata bulk flush of {} records failed: {}", batch.size(), e.getMessage());
+            return batch;
+        }
+        if (!resp.errors()) {
+            return List.of();
+        }
+        List<PendingWrite> retry = new ArrayList<>();
+        Set<String> retrying = new HashSet<>();
+        for (int i = 0; i < resp.items().size(); i++) {
+            BulkResponseItem item = resp.items().get(i);
+            PendingWrite write = batch.get(i);
+            if (retrying.contains(write.meta().getMetaId())) {
+                // keep it behind the earlier write to the same record that is retried
+                retry.add(write);
+                continue;
+            }
+            boolean lostCreateRace = write.mode() == Mode.CREATE && item.status() == 409;
+            if (item.error() == null || lostCreateRace) {
+                continue;
+            }
+            if (item.status() == 429 || item.status() >= 500) {
+                retrying.add(write.meta().getMetaId());
+                retry.add(write);
+            } else {
+                log.warn("Metadata write {} failed: {}", item.id(), item.error().reason());
+            }
+        }
+        return retry;
+    }
+
+    private BulkOperation toBulkOperation(PendingWrite write) {
+        EntityMetadata meta = write.meta();
+        String id = meta.getMetaId();
+        return switch (write.mode()) {
+            case SAVE -> BulkOperation.of(b -> b.index(i -> i.index(INDEX).id(id).document(meta)));
+            case UPDATE -> BulkOperation.of(b -> b.update(u -> u
+                    .index(INDEX)
+                    .id(id)
+                    .action(a -> a.doc(meta).docAsUpsert(true))));
+            case CREATE -> BulkOperation.of(b -> b.create(c -> c.index(INDEX).id(id).document(meta)));
+        };
+    }
+}
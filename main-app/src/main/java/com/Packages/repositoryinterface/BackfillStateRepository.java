@@ -0,0 +1,9 @@
+package com.Packages.repositoryinterface;
+
+import com.Packages.model.BackfillState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BackfillStateRepository extends MongoRepository<BackfillState, String> {
+}
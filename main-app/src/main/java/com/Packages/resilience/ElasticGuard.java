@@ -0,0 +1,305 @@
+package com.Packages.resilience;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Shared guard around every call EntityElasticRepository makes to the entity cluster.
+ * <p>
+ * Circuit breaker: the outcomes of the last {@code window} calls are kept. When at
+ * least {@code min-calls} have been seen and the failure rate reaches the
+ * threshold, the circuit opens and calls fail fast with
+ * {@link ElasticUnavailableException} for {@code open-ms}. It then goes
+ * half-open and lets {@code half-open-permits} trial calls through; they
+ * close it again, and any failure among them re-opens it.
+ * <p>
+ * AIMD concurrency limit: in-flight calls are capped at a limit that grows by
+ * one per limit-worth of fast successes and is multiplied by
+ * {@code backoff-ratio} on an overload signal (429, 5xx, I/O failure or a call
+ * slower than {@code latency-threshold-ms}), at most once per threshold interval.
+ * Bulk calls are exempt from the latency rule, since their latency grows with
+ * the item count; their 429/5xx items are the overload signal instead.
+ * <p>
+ * Client errors (4xx other than 429) count as successes: ES answered correctly.
+ */
+@Component
+public class ElasticGuard {
+    private static final Logger log = LoggerFactory.getLogger(ElasticGuard.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T run() throws IOException;
+    }
+
+    private final boolean enabled;
+    private final boolean[] outcomes;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openMs;
+    private final int halfOpenPermits;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long acquireTimeoutMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    // all guarded by lock
+    private State state = State.CLOSED;
+    private int calls;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public ElasticGuard(@Value("${es.guard.enabled:true}") boolean enabled,
+                        @Value("${es.guard.window:50}") int window,
+                        @Value("${es.guard.min-calls:20}") int minCalls,
+                        @Value("${es.guard.failure-rate-threshold:0.5}") double failureRateThreshold,
+                        @Value("${es.guard.open-ms:10000}") long openMs,
+                        @Value("${es.guard.half-open-permits:5}") int halfOpenPermits,
+                        @Value("${es.guard.limit.initial:64}") int initialLimit,
+                        @Value("${es.guard.limit.min:4}") int minLimit,
+                        @Value("${es.guard.limit.max:512}") int maxLimit,
+                        @Value("${es.guard.limit.latency-threshold-ms:500}") long latencyThresholdMs,
+                        @Value("${es.guard.limit.backoff-ratio:0.5}") double backoffRatio,
+                        @Value("${es.guard.limit.acquire-timeout-ms:200}") long acquireTimeoutMs) {
+        this.enabled = enabled;
+        this.outcomes = new boolean[window];
+        this.minCalls = Math.min(minCalls, window);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenPermits = halfOpenPermits;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    public <T> T call(Call<T> call) throws IOException {
+        return call(call, result -> false);
+    }
+
+    /**
+     * Runs {@code call} under the breaker and the concurrency limit.
+     * {@code overloaded} flags successful responses that still signal overload,
+     * e.g. a bulk response with 429 items.
+     */
+    public <T> T call(Call<T> call, Predicate<T> overloaded) throws IOException {
+        return guard(call, overloaded, true);
+    }
+
+    /**
+     * Like {@link #call(Call, Predicate)} for a {@code _bulk} request: its latency is
+     * not judged against {@code latency-threshold-ms}, only failures and
+     * {@code overloaded} responses signal overload.
+     */
+    public <T> T callBulk(Call<T> call, Predicate<T> overloaded) throws IOException {
+        return guard(call, overloaded, false);
+    }
+
+    private <T> T guard(Call<T> call, Predicate<T> overloaded, boolean timed) throws IOException {
+        if (!enabled) {
+            return call.run();
+        }
+        acquire();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.run();
+            failed = overloaded.test(result);
+            return result;
+        } catch (ElasticsearchException e) {
+            failed = isOverload(e.status());
+            throw e;
+        } finally {
+            release(failed, timed && System.nanoTime() - start > latencyThresholdNanos);
+        }
+    }
+
+    /** True while calls are being rejected without reaching Elasticsearch. */
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return currentState() == State.OPEN;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return currentState();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Failure rate over the breaker window while closed; 1 while open, 0 when nothing was seen yet. */
+    public double getFailureRate() {
+        lock.lock();
+        try {
+            return switch (currentState()) {
+                case OPEN -> 1.0;
+                case HALF_OPEN -> 0.0;
+                case CLOSED -> calls == 0 ? 0.0 : (double) failures / calls;
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static boolean isOverload(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            State s = currentState();
+            if (s == State.OPEN) {
+                throw new ElasticUnavailableException("Elasticsearch circuit open");
+            }
+            if (s == State.HALF_OPEN) {
+                if (halfOpenInFlight >= halfOpenPermits) {
+                    throw new ElasticUnavailableException("Elasticsearch circuit half-open, trial calls in flight");
+                }
+                halfOpenInFlight++;
+            }
+            long remaining = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    if (s == State.HALF_OPEN) {
+                        halfOpenInFlight--;
+                    }
+                    throw new ElasticUnavailableException(
+                            "Elasticsearch concurrency limit " + (int) limit + " reached");
+                }
+                remaining = slotFreed.awaitNanos(remaining);
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticUnavailableException("Interrupted waiting for an Elasticsearch slot");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean failed, boolean slow) {
+        lock.lock();
+        try {
+            inFlight--;
+            adjustLimit(failed || slow);
+            recordOutcome(failed);
+            slotFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustLimit(boolean overloaded) {
+        if (overloaded) {
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private void recordOutcome(boolean failed) {
+        switch (state) {
+            case HALF_OPEN -> {
+                // a call started before the circuit opened may land here; it is not a trial
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+                if (failed) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenPermits) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (calls == outcomes.length && outcomes[next]) {
+                    failures--;
+                }
+                outcomes[next] = failed;
+                next = (next + 1) % outcomes.length;
+                calls = Math.min(calls + 1, outcomes.length);
+                if (failed) {
+                    failures++;
+                }
+                if (calls >= minCalls && (double) failures / calls >= failureRateThreshold) {
+                    open();
+                }
+            }
+            case OPEN -> { }
+        }
+    }
+
+    private State currentState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+            halfOpenSuccesses = 0;
+            log.info("Elasticsearch circuit half-open");
+        }
+        return state;
+    }
+
+    private void open() {
+        if (state != State.OPEN) {
+            log.warn("Elasticsearch circuit opened ({} failures in last {} calls)", failures, calls);
+        }
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        calls = 0;
+        next = 0;
+        failures = 0;
+        log.info("Elasticsearch circuit closed");
+    }
+}
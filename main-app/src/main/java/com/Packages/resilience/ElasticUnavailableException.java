@@ -0,0 +1,12 @@
+package com.Packages.resilience;
+
+/**
+ * Thrown instead of calling Elasticsearch when {@link ElasticGuard} sheds the
+ * call: the circuit is open, or the concurrency limit stayed full for the
+ * acquire timeout. Callers treat it like an ES outage, not a client error.
+ */
+public class ElasticUnavailableException extends RuntimeException {
+    public ElasticUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,42 +1,68 @@
 package com.Packages.service;
 
+import com.Packages.cache.EntityCache;
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
 import com.Packages.dto.EntityDTO;
 import com.Packages.exception.EntityNotFoundException;
+import com.Packages.metrics.SyncMetrics;
 import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkChange;
 import com.Packages.repository.EntityMongoRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class ChangeStreamService {
+    private static final String APPROACH = "Change Stream";
 
     private final EntityMongoRepository mongoRepo;
+    private final SyncMetrics metrics;
+    private final EntityCache cache;
 
-    public ChangeStreamService(EntityMongoRepository mongoRepo) {
+    public ChangeStreamService(EntityMongoRepository mongoRepo, SyncMetrics metrics, EntityCache cache) {
         this.mongoRepo = mongoRepo;
+        this.metrics = metrics;
+        this.cache = cache;
     }
 
     public EntityDTO createEntity(EntityDTO dto) {
         LocalDateTime now = LocalDateTime.now();
         Entity entity = Entity.builder().id(dto.getId()).name(dto.getName()).createTime(now).modifiedTime(now).build();
-        mongoRepo.createEntity(entity);
+        metrics.timeMongoWrite(APPROACH, "create", () -> mongoRepo.createEntity(entity));
+        cache.written(entity);
         dto.setId(entity.getId());
         return dto;
     }
 
     public EntityDTO updateEntity(String id, EntityDTO dto) {
-        Entity entity = mongoRepo.getEntity(id).orElseThrow(() -> new EntityNotFoundException(id));
-        entity.setName(dto.getName());
-        entity.setModifiedTime(LocalDateTime.now());
-        mongoRepo.updateEntity(entity);
+        Entity entity = metrics.timeMongoWrite(APPROACH, "update",
+                () -> mongoRepo.findAndModifyEntity(id, dto.getName(), LocalDateTime.now()));
+        if (entity == null) {
+            throw new EntityNotFoundException(id);
+        }
+        cache.written(entity);
         dto.setId(entity.getId());
         return dto;
     }
 
     public boolean deleteEntity(String id) {
-        mongoRepo.getEntity(id).orElseThrow(() -> new EntityNotFoundException(id));
-        return mongoRepo.deleteEntity(id);
+        Entity removed = metrics.timeMongoWrite(APPROACH, "delete", () -> mongoRepo.findAndRemoveEntity(id));
+        if (removed == null) {
+            throw new EntityNotFoundException(id);
+        }
+        cache.deleted(id, removed.getVersion() + 1);
+        return true;
+    }
+
+    /** Bulk variant: one Mongo bulkWrite; the stream-service picks the changes up as usual. */
+    public List<BulkEntityResult> bulk(List<BulkEntityRequest> requests) {
+        List<EntityBulkChange> changes = metrics.timeMongoWrite(APPROACH, "bulk",
+                () -> mongoRepo.bulkApply(requests.stream().map(EntityBulkChange::of).toList()));
+        cache.written(changes);
+        return changes.stream().map(BulkEntityResult::of).toList();
     }
 }
 
@@ -1,102 +1,169 @@
 package com.Packages.service;
 
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.Packages.cache.EntityCache;
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
 import com.Packages.dto.EntityDTO;
 import com.Packages.exception.EntityNotFoundException;
+import com.Packages.metrics.SyncMetrics;
 import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkChange;
+import com.Packages.model.EntityBulkOperation;
+import com.Packages.model.EntityBulkResult;
 import com.Packages.model.EntityMetadata;
 import com.Packages.repository.EntityElasticRepository;
-import com.Packages.repository.EntityMetadataRepository;
 import com.Packages.repository.EntityMongoRepository;
+import com.Packages.repository.MetadataWriter;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Direct dual write: Mongo first, then Elasticsearch and entity_metadata.
+ * <p>
+ * Mongo is the source of truth and is never rolled back. If the ES leg fails the
+ * exception is returned to the caller and the metadata record ends as
+ * {@code failure} with the reason, which is what reconciliation works from.
+ * One metadata record is written per change, with the ES outcome.
+ */
 @Service
 public class DirectDataTransferService {
     private static final String ES_INDEX = "entity";
+    private static final String APPROACH = "Direct Data Transfer";
 
     private final EntityMongoRepository mongoRepo;
     private final EntityElasticRepository esRepo;
-    private final EntityMetadataRepository metaRepo;
+    private final MetadataWriter metaWriter;
+    private final SyncMetrics metrics;
+    private final EntityCache cache;
 
     public DirectDataTransferService(
             EntityMongoRepository mongoRepo,
             EntityElasticRepository esRepo,
-            EntityMetadataRepository metaRepo
+            MetadataWriter metaWriter,
+            SyncMetrics metrics,
+            EntityCache cache
     ) {
         this.mongoRepo = mongoRepo;
         this.esRepo = esRepo;
-        this.metaRepo = metaRepo;
+        this.metaWriter = metaWriter;
+        this.metrics = metrics;
+        this.cache = cache;
     }
 
     public EntityDTO createEntity(EntityDTO dto) {
         LocalDateTime now = LocalDateTime.now();
-        Entity e = new Entity(dto.getId(), dto.getName(), now, now, null);
-        e = mongoRepo.createEntity(e);
+        Entity toCreate = new Entity(dto.getId(), dto.getName(), now, now, null);
+        Entity e = metrics.timeMongoWrite(APPROACH, "create", () -> mongoRepo.createEntity(toCreate));
+        cache.written(e);
         dto.setId(e.getId());
         EntityMetadata meta = buildMetadata(e.getId(), "create", e.getVersion(),
                 System.currentTimeMillis());
-        try {
-            esRepo.createEntity(ES_INDEX, e);
-            meta.setEsStatus("success");
-            meta.setEsSyncMillis(System.currentTimeMillis());
-            return dto;
-        } catch (Exception ex) {
-            // failure path
-            String reason = extractReason(ex);
-            meta.setEsStatus("failure");
-            meta.setDlqReason(reason);
-            throw ex;
-        } finally {
-            metaRepo.save(meta);
-        }
+        syncToEs(meta, e);
+        return dto;
     }
 
     public EntityDTO updateEntity(String id, EntityDTO dto) {
         LocalDateTime now = LocalDateTime.now();
-        Entity e = mongoRepo.getEntity(id)
-                .orElseThrow(() -> new EntityNotFoundException(id));
-        e.setName(dto.getName());
-        e.setModifiedTime(now);
-        e = mongoRepo.updateEntity(e);
+        Entity e = metrics.timeMongoWrite(APPROACH, "update",
+                () -> mongoRepo.findAndModifyEntity(id, dto.getName(), now));
+        if (e == null) {
+            throw new EntityNotFoundException(id);
+        }
+        cache.written(e);
         EntityMetadata meta = buildMetadata(id, "update", e.getVersion(),
                 System.currentTimeMillis());
-        try {
-            esRepo.updateEntity(ES_INDEX, id, e, e.getCreateTime());
-            meta.setEsStatus("success");
-            meta.setEsSyncMillis(System.currentTimeMillis());
-            return dto;
-        } catch (Exception ex) {
-            String reason = extractReason(ex);
-            meta.setEsStatus("failure");
-            meta.setDlqReason(reason);
-            throw ex;
-        } finally {
-            metaRepo.save(meta);
-        }
+        syncToEs(meta, e);
+        return dto;
     }
 
     public boolean deleteEntity(String id) {
         long writeTs = System.currentTimeMillis();
-        Entity e = mongoRepo.getEntity(id)
-                .orElseThrow(() -> new EntityNotFoundException(id));
-        boolean deletedInMongo = mongoRepo.deleteEntity(id);
-        if (!deletedInMongo) return false;
+        Entity e = metrics.timeMongoWrite(APPROACH, "delete", () -> mongoRepo.findAndRemoveEntity(id));
+        if (e == null) {
+            throw new EntityNotFoundException(id);
+        }
+        cache.deleted(id, e.getVersion() + 1);
         EntityMetadata meta = buildMetadata(id, "delete", e.getVersion() + 1, writeTs);
+        syncToEs(meta, e);
+        return true;
+    }
+
+    /**
+     * Bulk variant: one Mongo bulkWrite and one ES _bulk for the whole batch.
+     * Unlike the single-item calls an ES failure does not fail the request; it is
+     * reported per item (esStatus failure, status 500) and in the metadata record.
+     */
+    public List<BulkEntityResult> bulk(List<BulkEntityRequest> requests) {
+        long mongoTs = System.currentTimeMillis();
+        List<EntityBulkChange> changes = metrics.timeMongoWrite(APPROACH, "bulk",
+                () -> mongoRepo.bulkApply(requests.stream().map(EntityBulkChange::of).toList()));
+        cache.written(changes);
+        List<EntityBulkChange> applied = changes.stream().filter(EntityBulkChange::isApplied).toList();
+        List<EntityBulkOperation> ops = new ArrayList<>(applied.size());
+        for (EntityBulkChange c : applied) {
+            ops.add(EntityBulkOperation.builder()
+                    .operation(c.getOperation())
+                    .index(ES_INDEX)
+                    .id(c.getId())
+                    .entity(c.getEntity())
+                    .version(c.operationSeq())
+                    .build());
+        }
+        List<EntityBulkResult> results = null;
+        String failure = null;
+        long start = System.nanoTime();
+        try {
+            results = esRepo.bulkWrite(ops);
+            metrics.recordEsBulk(APPROACH, System.nanoTime() - start, true);
+        } catch (Exception ex) {
+            metrics.recordEsBulk(APPROACH, System.nanoTime() - start, false);
+            failure = extractReason(ex);
+        }
+        for (int i = 0; i < applied.size(); i++) {
+            EntityBulkChange c = applied.get(i);
+            EntityBulkResult r = results != null ? results.get(i) : null;
+            EntityMetadata meta = buildMetadata(c.getId(), c.getOperation(), c.operationSeq(), mongoTs);
+            if (r != null && r.isSuccess()) {
+                meta.setEsStatus(r.getStatus() == 404 ? "not_found" : "success");
+                meta.setEsSyncMillis(System.currentTimeMillis());
+                metrics.recordSynced(meta);
+                if (r.isVersionConflict()) {
+                    metrics.recordStale(meta);
+                }
+            } else {
+                meta.setEsStatus("failure");
+                meta.setDlqReason(r != null ? r.getReason() : failure);
+                c.fail(500, meta.getDlqReason());
+            }
+            c.setEsStatus(meta.getEsStatus());
+            metaWriter.save(meta);
+        }
+        return changes.stream().map(BulkEntityResult::of).toList();
+    }
+
+    // versioned write; a stale one (409) counts as synced, since ES already has this or a newer version
+    private void syncToEs(EntityMetadata meta, Entity entity) {
         try {
-            boolean deletedInEs = esRepo.deleteEntity(ES_INDEX, id);
-            meta.setEsStatus(deletedInEs ? "success" : "not_found");
+            boolean applied = metrics.timeEsWrite(APPROACH, meta.getOperation(), () -> esRepo.writeVersioned(
+                    ES_INDEX, meta.getOperation(), meta.getEntityId(), entity, meta.getOperationSeq()));
+            meta.setEsStatus("success");
             meta.setEsSyncMillis(System.currentTimeMillis());
-            return deletedInEs;
+            metrics.recordSynced(meta);
+            if (!applied) {
+                metrics.recordStale(meta);
+            }
         } catch (Exception ex) {
             String reason = extractReason(ex);
             meta.setEsStatus("failure");
             meta.setDlqReason(reason);
             throw ex;
         } finally {
-            metaRepo.save(meta);
+            metaWriter.save(meta);
         }
     }
 
@@ -107,7 +174,7 @@ public class DirectDataTransferService {
         return EntityMetadata.builder()
                 .metaId(UUID.randomUUID().toString())
                 .entityId(entityId)
-                .approach("Direct Data Transfer")
+                .approach(APPROACH)
                 .operation(operation)
                 .operationSeq(operationSeq)
                 .mongoWriteMillis(mongoWriteMillis)
@@ -0,0 +1,68 @@
+package com.Packages.service;
+
+import com.Packages.cache.EntityCache;
+import com.Packages.model.Entity;
+import com.Packages.repository.EntityElasticRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read side of the entity index, with {@link EntityCache} in front of get-by-id.
+ * Searches always go to ES; with read-your-writes each hit is replaced by a newer
+ * cached write of the same id, and hits deleted since are dropped.
+ */
+@Service
+public class EntityReadService {
+    private static final String ES_INDEX = "entity";
+
+    private final EntityElasticRepository esRepo;
+    private final EntityCache cache;
+
+    public EntityReadService(EntityElasticRepository esRepo, EntityCache cache) {
+        this.esRepo = esRepo;
+        this.cache = cache;
+    }
+
+    public Optional<Entity> get(String id) {
+        EntityCache.Lookup cached = cache.get(id);
+        if (cached.hit()) {
+            return Optional.ofNullable(cached.entity());
+        }
+        try {
+            Optional<Entity> loaded = esRepo.findById(ES_INDEX, id);
+            loaded.ifPresent(cache::loaded);
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<Entity> search(String text, int from, int size) {
+        List<Entity> hits;
+        try {
+            hits = esRepo.searchByName(ES_INDEX, text, from, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!cache.isReadYourWrites()) {
+            return hits;
+        }
+        List<Entity> merged = new ArrayList<>(hits.size());
+        for (Entity hit : hits) {
+            EntityCache.Lookup cached = cache.peek(hit.getId());
+            if (!cached.hit()) {
+                merged.add(hit);
+            } else if (cached.entity() != null) {
+                long cachedVersion = cached.entity().getVersion() != null ? cached.entity().getVersion() : 0;
+                long hitVersion = hit.getVersion() != null ? hit.getVersion() : 0;
+                merged.add(cachedVersion > hitVersion ? cached.entity() : hit);
+            }
+        }
+        return merged;
+    }
+}
@@ -1,37 +1,53 @@
 package com.Packages.service;
 
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.Packages.cache.EntityCache;
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
 import com.Packages.dto.EntityDTO;
 import com.Packages.exception.EntityNotFoundException;
+import com.Packages.kafka.EntityProducer;
+import com.Packages.metrics.SyncMetrics;
 import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkChange;
+import com.Packages.model.EntityBulkOperation;
+import com.Packages.model.EntityBulkResult;
 import com.Packages.model.EntityEvent;
 import com.Packages.model.EntityMetadata;
 import com.Packages.repository.EntityElasticRepository;
-import com.Packages.repository.EntityMetadataRepository;
 import com.Packages.repository.EntityMongoRepository;
-import org.springframework.kafka.core.KafkaTemplate;
+import com.Packages.repository.MetadataWriter;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Service
 public class HybridSyncService {
     private static final String ES_INDEX = "entity";
+    private static final String APPROACH = "Hybrid Sync";
 
     private final EntityMongoRepository mongoRepo;
     private final EntityElasticRepository esRepo;
-    private final EntityMetadataRepository metaRepo;
-    private final KafkaTemplate<String, EntityEvent> kafka;
+    private final MetadataWriter metaWriter;
+    private final EntityProducer producer;
+    private final SyncMetrics metrics;
+    private final EntityCache cache;
 
     public HybridSyncService(EntityMongoRepository mongoRepo,
-                             EntityMetadataRepository metaRepo,
+                             MetadataWriter metaWriter,
                              EntityElasticRepository esRepo,
-                             KafkaTemplate<String, EntityEvent> kafka) {
+                             EntityProducer producer,
+                             SyncMetrics metrics,
+                             EntityCache cache) {
         this.mongoRepo = mongoRepo;
-        this.metaRepo = metaRepo;
+        this.metaWriter = metaWriter;
         this.esRepo = esRepo;
-        this.kafka = kafka;
+        this.producer = producer;
+        this.metrics = metrics;
+        this.cache = cache;
     }
 
     public EntityDTO createEntity(EntityDTO dto) {
@@ -43,14 +59,20 @@ public class HybridSyncService {
                 .modifiedTime(now)
                 .build();
         long mongoTs = System.currentTimeMillis();
-        mongoRepo.createEntity(e);
+        metrics.timeMongoWrite(APPROACH, "create", () -> mongoRepo.createEntity(e));
+        cache.written(e);
         dto.setId(e.getId());
         EntityMetadata meta = buildMetadata(e.getId(), "create", e.getVersion(), mongoTs);
         EntityEvent dlqEvent = null;
         try {
-            esRepo.createEntity(ES_INDEX, e);
+            boolean applied = metrics.timeEsWrite(APPROACH, "create",
+                    () -> esRepo.writeVersioned(ES_INDEX, "create", e.getId(), e, meta.getOperationSeq()));
             meta.setEsStatus("success");
             meta.setEsSyncMillis(System.currentTimeMillis());
+            metrics.recordSynced(meta);
+            if (!applied) {
+                metrics.recordStale(meta);
+            }
             return dto;
         } catch (Exception ex) {
             if (meta.getFirstFailureTime() == null) {
@@ -63,28 +85,35 @@ public class HybridSyncService {
             dlqEvent = buildEvent("create", e, e.getId(), ES_INDEX, meta);
             return dto;
         } finally {
-            metaRepo.save(meta);
+            metaWriter.saveIfAbsent(meta);
             if (dlqEvent != null) {
-                kafka.send("dlq114", meta.getEntityId(), dlqEvent);
+                metrics.recordDlq(meta);
+                producer.send("dlq114", dlqEvent);
             }
         }
     }
 
     public EntityDTO updateEntity(String id, EntityDTO dto) {
         LocalDateTime now = LocalDateTime.now();
-        Entity e = mongoRepo.getEntity(id)
-                .orElseThrow(() -> new EntityNotFoundException(id));
-        e.setName(dto.getName());
-        e.setModifiedTime(now);
-        mongoRepo.updateEntity(e);
+        Entity e = metrics.timeMongoWrite(APPROACH, "update",
+                () -> mongoRepo.findAndModifyEntity(id, dto.getName(), now));
+        if (e == null) {
+            throw new EntityNotFoundException(id);
+        }
+        cache.written(e);
         dto.setId(e.getId());
         long mongoTs = System.currentTimeMillis();
         EntityMetadata meta = buildMetadata(e.getId(), "update", e.getVersion(), mongoTs);
         EntityEvent dlqEvent = null;
         try {
-            esRepo.createEntity(ES_INDEX, e);
+            boolean applied = metrics.timeEsWrite(APPROACH, "update",
+                    () -> esRepo.writeVersioned(ES_INDEX, "update", e.getId(), e, meta.getOperationSeq()));
             meta.setEsStatus("success");
             meta.setEsSyncMillis(System.currentTimeMillis());
+            metrics.recordSynced(meta);
+            if (!applied) {
+                metrics.recordStale(meta);
+            }
             return dto;
         } catch (Exception ex) {
             if (meta.getFirstFailureTime() == null) {
@@ -97,29 +126,34 @@ public class HybridSyncService {
             dlqEvent = buildEvent("update", e, e.getId(), ES_INDEX, meta);
             return dto;
         } finally {
-            metaRepo.save(meta);
+            metaWriter.saveIfAbsent(meta);
             if (dlqEvent != null) {
-                kafka.send("dlq114", meta.getEntityId(), dlqEvent);
+                metrics.recordDlq(meta);
+                producer.send("dlq114", dlqEvent);
             }
         }
     }
 
     public boolean deleteEntity(String id) {
-        Entity e = mongoRepo.getEntity(id)
-                .orElseThrow(() -> new EntityNotFoundException(id));
         long mongoTs = System.currentTimeMillis();
-        boolean proceeded = mongoRepo.deleteEntity(id);
-        if (!proceeded) {
-            return false;
+        Entity e = metrics.timeMongoWrite(APPROACH, "delete", () -> mongoRepo.findAndRemoveEntity(id));
+        if (e == null) {
+            throw new EntityNotFoundException(id);
         }
+        cache.deleted(id, e.getVersion() + 1);
         EntityMetadata meta = buildMetadata(id, "delete", e.getVersion() + 1, mongoTs);
         EntityEvent dlqEvent = null;
         try {
-            boolean deleted = esRepo.deleteEntity(ES_INDEX, id);
-            meta.setEsStatus(deleted ? "success" : "not_found");
+            boolean applied = metrics.timeEsWrite(APPROACH, "delete",
+                    () -> esRepo.writeVersioned(ES_INDEX, "delete", id, e, meta.getOperationSeq()));
+            meta.setEsStatus("success");
             meta.setEsSyncMillis(System.currentTimeMillis());
+            metrics.recordSynced(meta);
+            if (!applied) {
+                metrics.recordStale(meta);
+            }
             meta.setSyncAttempt(1);
-            return deleted;
+            return true;
         } catch (Exception ex) {
             if (meta.getFirstFailureTime() == null) {
                 meta.setFirstFailureTime(System.currentTimeMillis());
@@ -131,11 +165,75 @@ public class HybridSyncService {
             dlqEvent = buildEvent("delete", Entity.builder().id(id).build(), id, ES_INDEX, meta);
             return false;
         } finally {
-            metaRepo.save(meta);
+            metaWriter.saveIfAbsent(meta);
+            if (dlqEvent != null) {
+                metrics.recordDlq(meta);
+                producer.send("dlq114", dlqEvent);
+            }
+        }
+    }
+
+    /**
+     * Bulk variant: one Mongo bulkWrite and one ES _bulk for the whole batch; the
+     * items ES did not take are published to dlq114 (esStatus queued), like the
+     * single-item calls do.
+     */
+    public List<BulkEntityResult> bulk(List<BulkEntityRequest> requests) {
+        long mongoTs = System.currentTimeMillis();
+        List<EntityBulkChange> changes = metrics.timeMongoWrite(APPROACH, "bulk",
+                () -> mongoRepo.bulkApply(requests.stream().map(EntityBulkChange::of).toList()));
+        cache.written(changes);
+        List<EntityBulkChange> applied = changes.stream().filter(EntityBulkChange::isApplied).toList();
+        List<EntityBulkOperation> ops = new ArrayList<>(applied.size());
+        for (EntityBulkChange c : applied) {
+            ops.add(EntityBulkOperation.builder()
+                    .operation(c.getOperation())
+                    .index(ES_INDEX)
+                    .id(c.getId())
+                    .entity(c.getEntity())
+                    .version(c.operationSeq())
+                    .build());
+        }
+        List<EntityBulkResult> results = null;
+        String failure = null;
+        long start = System.nanoTime();
+        try {
+            results = esRepo.bulkWrite(ops);
+            metrics.recordEsBulk(APPROACH, System.nanoTime() - start, true);
+        } catch (Exception ex) {
+            metrics.recordEsBulk(APPROACH, System.nanoTime() - start, false);
+            failure = extractReason(ex);
+        }
+        for (int i = 0; i < applied.size(); i++) {
+            EntityBulkChange c = applied.get(i);
+            EntityBulkResult r = results != null ? results.get(i) : null;
+            EntityMetadata meta = buildMetadata(c.getId(), c.getOperation(), c.operationSeq(), mongoTs);
+            EntityEvent dlqEvent = null;
+            if (r != null && r.isSuccess()) {
+                meta.setEsStatus(r.getStatus() == 404 ? "not_found" : "success");
+                meta.setEsSyncMillis(System.currentTimeMillis());
+                metrics.recordSynced(meta);
+                if (r.isVersionConflict()) {
+                    metrics.recordStale(meta);
+                }
+                c.setEsStatus(meta.getEsStatus());
+            } else {
+                meta.setFirstFailureTime(System.currentTimeMillis());
+                meta.setEsStatus("failure");
+                meta.setDlqReason(r != null ? r.getReason() : failure);
+                Entity entity = c.getOperation().equals("delete")
+                        ? Entity.builder().id(c.getId()).build()
+                        : c.getEntity();
+                dlqEvent = buildEvent(c.getOperation(), entity, c.getId(), ES_INDEX, meta);
+                c.setEsStatus("queued");
+            }
+            metaWriter.saveIfAbsent(meta);
             if (dlqEvent != null) {
-                kafka.send("dlq114", meta.getEntityId(), dlqEvent);
+                metrics.recordDlq(meta);
+                producer.send("dlq114", dlqEvent);
             }
         }
+        return changes.stream().map(BulkEntityResult::of).toList();
     }
 
     private EntityMetadata buildMetadata(String entityId,
@@ -145,7 +243,7 @@ public class HybridSyncService {
         return EntityMetadata.builder()
                 .metaId(UUID.randomUUID().toString())
                 .entityId(entityId)
-                .approach("Hybrid Sync")
+                .approach(APPROACH)
                 .operation(operation)
                 .operationSeq(seq)
                 .mongoWriteMillis(mongoTs)
@@ -0,0 +1,278 @@
+package com.Packages.service;
+
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
+import com.Packages.dto.IngestReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Streams an NDJSON upload into one of the sync approaches.
+ * <p>
+ * Lines are parsed one at a time and grouped into chunks of {@code chunkSize}
+ * items; each chunk goes through the approach's bulk path on its own virtual
+ * thread, with at most {@code inFlight} chunks applied at once. The reader blocks
+ * while that many are pending, which also stops it reading the request body, so
+ * heap use is bounded by chunkSize * inFlight whatever the upload size. A line
+ * longer than {@code maxLineLength} characters is reported as 400 and skipped
+ * without being buffered, so one huge line cannot exhaust the heap either.
+ * <p>
+ * Chunks run concurrently, so two lines for the same id in different chunks may
+ * be applied in either order; use inFlight=1 when a file updates the same ids
+ * more than once.
+ */
+@Service
+public class IngestService {
+    private static final Logger log = LoggerFactory.getLogger(IngestService.class);
+
+    private final Map<String, Function<List<BulkEntityRequest>, List<BulkEntityResult>>> approaches;
+    private final ObjectReader reader;
+    private final int maxErrors;
+    private final int maxLineLength;
+    private final ExecutorService chunkExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public IngestService(DirectDataTransferService direct,
+                         KafkaSyncService kafka,
+                         HybridSyncService hybrid,
+                         ChangeStreamService stream,
+                         ObjectMapper objectMapper,
+                         @Value("${ingest.max-errors:100}") int maxErrors,
+                         @Value("${ingest.max-line-length:1048576}") int maxLineLength) {
+        this.approaches = Map.of(
+                "direct", direct::bulk,
+                "kafka", kafka::bulk,
+                "hybrid", hybrid::bulk,
+                "stream", stream::bulk);
+        this.reader = objectMapper.readerFor(BulkEntityRequest.class);
+        this.maxErrors = maxErrors;
+        this.maxLineLength = maxLineLength;
+    }
+
+    @PreDestroy
+    void stop() {
+        chunkExecutor.close();
+    }
+
+    public boolean supports(String approach) {
+        return approaches.containsKey(approach);
+    }
+
+    public IngestReport ingest(InputStream body, String approach, int chunkSize, int inFlight)
+            throws IOException, InterruptedException {
+        Function<List<BulkEntityRequest>, List<BulkEntityResult>> bulk = approaches.get(approach);
+        if (bulk == null) {
+            throw new IllegalArgumentException("Unknown approach: " + approach);
+        }
+        long start = System.currentTimeMillis();
+        Tally tally = new Tally(maxErrors);
+        Semaphore permits = new Semaphore(inFlight);
+        long lineNo = 0;
+        long chunks = 0;
+        List<BulkEntityRequest> chunk = new ArrayList<>(chunkSize);
+        long[] lines = new long[chunkSize];
+        try (Reader in = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+            LineReader source = new LineReader(in, maxLineLength);
+            StringBuilder line = new StringBuilder();
+            LineRead read;
+            while ((read = source.next(line)) != LineRead.EOF) {
+                lineNo++;
+                if (read == LineRead.TOO_LONG) {
+                    tally.record(lineNo, null, 400, "Line longer than " + maxLineLength + " characters");
+                    continue;
+                }
+                if (line.isEmpty() || line.toString().isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(reader.readValue(line.toString()));
+                } catch (JsonProcessingException e) {
+                    tally.record(lineNo, null, 400, "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                lines[chunk.size() - 1] = lineNo;
+                if (chunk.size() == chunkSize) {
+                    submit(bulk, chunk, lines, permits, tally);
+                    chunks++;
+                    chunk = new ArrayList<>(chunkSize);
+                    lines = new long[chunkSize];
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(bulk, chunk, lines, permits, tally);
+                chunks++;
+            }
+        } finally {
+            // wait for the chunks still in flight, also when the upload broke off
+            permits.acquire(inFlight);
+            permits.release(inFlight);
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        long items = tally.total();
+        log.info("Ingested {} lines in {} chunks via {} in {} ms ({} failed)",
+                items, chunks, approach, elapsed, tally.failed.sum());
+        return IngestReport.builder()
+                .approach(approach)
+                .lines(lineNo)
+                .chunks(chunks)
+                .statuses(tally.statuses())
+                .failed(tally.failed.sum())
+                .errors(tally.errors())
+                .elapsedMillis(elapsed)
+                .itemsPerSecond(items * 1000 / elapsed)
+                .build();
+    }
+
+    private enum LineRead { LINE, TOO_LONG, EOF }
+
+    /**
+     * Splits a character stream into lines like {@link java.io.BufferedReader#readLine()},
+     * scanning its own buffer for line breaks, but keeps at most maxLineLength
+     * characters: the rest of a longer line is skipped up to its line break.
+     */
+    private static final class LineReader {
+        private final Reader in;
+        private final int maxLineLength;
+        private final char[] buf = new char[8192];
+        private int pos;
+        private int end;
+        // a \r ended the last line; a \n right after it belongs to that line break
+        private boolean skipLf;
+
+        LineReader(Reader in, int maxLineLength) {
+            this.in = in;
+            this.maxLineLength = maxLineLength;
+        }
+
+        LineRead next(StringBuilder line) throws IOException {
+            line.setLength(0);
+            boolean tooLong = false;
+            while (true) {
+                if (pos == end) {
+                    int n = in.read(buf, 0, buf.length);
+                    if (n < 0) {
+                        pos = end = 0;
+                        return tooLong ? LineRead.TOO_LONG : line.isEmpty() ? LineRead.EOF : LineRead.LINE;
+                    }
+                    pos = 0;
+                    end = n;
+                    continue;
+                }
+                if (skipLf) {
+                    skipLf = false;
+                    if (buf[pos] == '\n') {
+                        pos++;
+                        continue;
+                    }
+                }
+                int start = pos;
+                while (pos < end && buf[pos] != '\n' && buf[pos] != '\r') {
+                    pos++;
+                }
+                if (!tooLong) {
+                    if (line.length() + (pos - start) > maxLineLength) {
+                        tooLong = true;
+                        line.setLength(0);
+                    } else {
+                        line.append(buf, start, pos - start);
+                    }
+                }
+                if (pos < end) {
+                    skipLf = buf[pos++] == '\r';
+                    return tooLong ? LineRead.TOO_LONG : LineRead.LINE;
+                }
+            }
+        }
+    }
+
+    private void submit(Function<List<BulkEntityRequest>, List<BulkEntityResult>> bulk,
+                        List<BulkEntityRequest> chunk,
+                        long[] lines,
+                        Semaphore permits,
+                        Tally tally) throws InterruptedException {
+        permits.acquire();
+        try {
+            chunkExecutor.execute(() -> {
+                try {
+                    List<BulkEntityResult> results = bulk.apply(chunk);
+                    for (int i = 0; i < results.size(); i++) {
+                        BulkEntityResult r = results.get(i);
+                        tally.record(lines[i], r.getId(), r.getStatus(), r.getError());
+                    }
+                } catch (Exception e) {
+                    log.error("Ingest chunk starting at line {} failed", lines[0], e);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        tally.record(lines[i], chunk.get(i).getId(), 500, e.getMessage());
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private static final class Tally {
+        final int maxErrors;
+        final Map<Integer, LongAdder> byStatus = new ConcurrentHashMap<>();
+        final LongAdder failed = new LongAdder();
+        final List<IngestReport.LineError> errors = new ArrayList<>();
+
+        Tally(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void record(long line, String id, int status, String error) {
+            byStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+            if (status >= 300) {
+                failed.increment();
+                synchronized (errors) {
+                    if (errors.size() < maxErrors) {
+                        errors.add(new IngestReport.LineError(line, id, status, error));
+                    }
+                }
+            }
+        }
+
+        long total() {
+            return byStatus.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        Map<Integer, Long> statuses() {
+            Map<Integer, Long> out = new TreeMap<>();
+            byStatus.forEach((status, count) -> out.put(status, count.sum()));
+            return out;
+        }
+
+        List<IngestReport.LineError> errors() {
+            synchronized (errors) {
+                List<IngestReport.LineError> sorted = new ArrayList<>(errors);
+                sorted.sort((a, b) -> Long.compare(a.line(), b.line()));
+                return sorted;
+            }
+        }
+    }
+}
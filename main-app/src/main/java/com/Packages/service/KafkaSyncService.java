@@ -1,85 +1,224 @@
 package com.Packages.service;
 
+import com.Packages.cache.EntityCache;
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
 import com.Packages.dto.EntityDTO;
 import com.Packages.exception.EntityNotFoundException;
 import com.Packages.kafka.EntityProducer;
+import com.Packages.metrics.SyncMetrics;
 import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkChange;
 import com.Packages.model.EntityEvent;
 import com.Packages.model.EntityMetadata;
-import com.Packages.repository.EntityMetadataRepository;
 import com.Packages.repository.EntityMongoRepository;
+import com.Packages.model.OutboxEvent;
+import com.Packages.repository.MetadataWriter;
+import com.mongodb.MongoException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
+/**
+ * Writes Mongo and publishes the change to entity113 for the Kafka consumer.
+ * <p>
+ * With {@code kafka.sync.outbox.enabled} the event is not sent from the request.
+ * It is inserted into the outbox collection in the same Mongo transaction as the
+ * Entity change, and {@link com.Packages.kafka.OutboxRelay} publishes it in
+ * batches. A crash can then no longer leave a Mongo change without its event.
+ */
 @Service
 public class KafkaSyncService {
     private static final String ES_INDEX = "entity";
+    private static final String APPROACH = "Kafka Sync";
+    private static final int MAX_TX_ATTEMPTS = 3;
     private final EntityMongoRepository mongoRepo;
-    private final EntityMetadataRepository metaRepo;
+    private final MetadataWriter metaWriter;
     private final EntityProducer kafkaProducer;
+    private final SyncMetrics metrics;
+    private final EntityCache cache;
+    private final MongoOperations mongoOps;
+    private final TransactionTemplate tx;
+    private final boolean outboxEnabled;
 
     public KafkaSyncService(EntityMongoRepository mongoRepo,
-                            EntityMetadataRepository metaRepo,
-                            EntityProducer kafkaProducer) {
+                            MetadataWriter metaWriter,
+                            EntityProducer kafkaProducer,
+                            SyncMetrics metrics,
+                            EntityCache cache,
+                            MongoOperations mongoOps,
+                            MongoTransactionManager txManager,
+                            @Value("${kafka.sync.outbox.enabled:false}") boolean outboxEnabled) {
         this.mongoRepo = mongoRepo;
-        this.metaRepo = metaRepo;
+        this.metaWriter = metaWriter;
         this.kafkaProducer = kafkaProducer;
+        this.metrics = metrics;
+        this.cache = cache;
+        this.mongoOps = mongoOps;
+        this.tx = new TransactionTemplate(txManager);
+        this.outboxEnabled = outboxEnabled;
     }
 
     public EntityDTO createEntity(EntityDTO dto) {
         long mongoTs = System.currentTimeMillis();
         LocalDateTime now = LocalDateTime.now();
-        Entity e = Entity.builder()
-                .id(dto.getId())
-                .name(dto.getName())
-                .createTime(now)
-                .modifiedTime(now)
-                .build();
-        mongoRepo.createEntity(e);
-        dto.setId(e.getId());
-        EntityMetadata meta = buildMetadata(e.getId(), "create", e.getVersion(), mongoTs);
-        metaRepo.save(meta);
-        kafkaProducer.sendToKafka(
-                buildEvent("create", e, e.getId(), ES_INDEX, meta)
-        );
+        EntityEvent event = write(() -> {
+            Entity e = Entity.builder()
+                    .id(dto.getId())
+                    .name(dto.getName())
+                    .createTime(now)
+                    .modifiedTime(now)
+                    .build();
+            metrics.timeMongoWrite(APPROACH, "create", () -> mongoRepo.createEntity(e));
+            EntityMetadata meta = buildMetadata(e.getId(), "create", e.getVersion(), mongoTs);
+            return buildEvent("create", e, e.getId(), ES_INDEX, meta);
+        });
+        cache.written(event.getEntity());
+        dto.setId(event.getId());
         return dto;
     }
 
     public EntityDTO updateEntity(String id, EntityDTO dto) {
         long mongoTs = System.currentTimeMillis();
         LocalDateTime now = LocalDateTime.now();
-        Entity e = mongoRepo.getEntity(id)
-                .orElseThrow(() -> new EntityNotFoundException(id));
-        e.setName(dto.getName());
-        e.setModifiedTime(now);
-        mongoRepo.updateEntity(e);
-        dto.setId(e.getId());
-        EntityMetadata meta = buildMetadata(id, "update", e.getVersion(), mongoTs);
-        metaRepo.save(meta);
-        kafkaProducer.sendToKafka(
-                buildEvent("update", e, id, ES_INDEX, meta)
-        );
+        EntityEvent event = write(() -> {
+            Entity e = metrics.timeMongoWrite(APPROACH, "update",
+                    () -> mongoRepo.findAndModifyEntity(id, dto.getName(), now));
+            if (e == null) {
+                throw new EntityNotFoundException(id);
+            }
+            EntityMetadata meta = buildMetadata(id, "update", e.getVersion(), mongoTs);
+            return buildEvent("update", e, id, ES_INDEX, meta);
+        });
+        cache.written(event.getEntity());
+        dto.setId(event.getEntity().getId());
         return dto;
     }
 
     public boolean deleteEntity(String id) {
         long mongoTs = System.currentTimeMillis();
-        Entity e = mongoRepo.getEntity(id)
-                .orElseThrow(() -> new EntityNotFoundException(id));
-        boolean deleted = mongoRepo.deleteEntity(id);
-        if (!deleted) {
-            return false;
-        }
-        EntityMetadata meta = buildMetadata(id, "delete", e.getVersion() + 1, mongoTs);
-        metaRepo.save(meta);
-        kafkaProducer.sendToKafka(
-                buildEvent("delete", Entity.builder().id(id).build(), id, ES_INDEX, meta)
-        );
+        EntityEvent event = write(() -> {
+            Entity e = metrics.timeMongoWrite(APPROACH, "delete", () -> mongoRepo.findAndRemoveEntity(id));
+            if (e == null) {
+                throw new EntityNotFoundException(id);
+            }
+            EntityMetadata meta = buildMetadata(id, "delete", e.getVersion() + 1, mongoTs);
+            return buildEvent("delete", Entity.builder().id(id).build(), id, ES_INDEX, meta);
+        });
+        cache.deleted(id, event.getEntityMetadata().getOperationSeq());
         return true;
     }
 
+    /**
+     * Bulk variant: one Mongo bulkWrite, then one entity113 event per applied item,
+     * sent without waiting so the producer batches them (esStatus queued). In outbox
+     * mode the bulkWrite and the outbox inserts share one transaction.
+     */
+    public List<BulkEntityResult> bulk(List<BulkEntityRequest> requests) {
+        long mongoTs = System.currentTimeMillis();
+        List<EntityBulkChange> changes;
+        List<EntityEvent> events = new ArrayList<>();
+        if (!outboxEnabled) {
+            changes = metrics.timeMongoWrite(APPROACH, "bulk",
+                    () -> mongoRepo.bulkApply(requests.stream().map(EntityBulkChange::of).toList()));
+            events.addAll(eventsOf(changes, mongoTs));
+            for (EntityEvent event : events) {
+                metaWriter.saveIfAbsent(event.getEntityMetadata());
+                kafkaProducer.sendToKafka(event);
+            }
+        } else {
+            changes = inTransaction(() -> {
+                events.clear();
+                List<EntityBulkChange> applied = metrics.timeMongoWrite(APPROACH, "bulk",
+                        () -> mongoRepo.bulkApply(requests.stream().map(EntityBulkChange::of).toList()));
+                events.addAll(eventsOf(applied, mongoTs));
+                if (!events.isEmpty()) {
+                    Instant now = Instant.now();
+                    mongoOps.insert(events.stream()
+                            .map(ev -> OutboxEvent.builder()
+                                    .topic(EntityProducer.TOPIC)
+                                    .event(ev)
+                                    .createdAt(now)
+                                    .build())
+                            .toList(), OutboxEvent.class);
+                }
+                return applied;
+            });
+            events.forEach(ev -> metaWriter.saveIfAbsent(ev.getEntityMetadata()));
+        }
+        cache.written(changes);
+        return changes.stream().map(BulkEntityResult::of).toList();
+    }
+
+    private List<EntityEvent> eventsOf(List<EntityBulkChange> changes, long mongoTs) {
+        List<EntityEvent> events = new ArrayList<>();
+        for (EntityBulkChange c : changes) {
+            if (!c.isApplied()) {
+                continue;
+            }
+            EntityMetadata meta = buildMetadata(c.getId(), c.getOperation(), c.operationSeq(), mongoTs);
+            Entity entity = c.getOperation().equals("delete")
+                    ? Entity.builder().id(c.getId()).build()
+                    : c.getEntity();
+            events.add(buildEvent(c.getOperation(), entity, c.getId(), ES_INDEX, meta));
+            c.setEsStatus("queued");
+        }
+        return events;
+    }
+
+    /** Applies the Mongo change and hands its event to Kafka, directly or through the outbox. */
+    private EntityEvent write(Supplier<EntityEvent> change) {
+        if (!outboxEnabled) {
+            EntityEvent event = change.get();
+            metaWriter.saveIfAbsent(event.getEntityMetadata());
+            kafkaProducer.sendToKafka(event);
+            return event;
+        }
+        EntityEvent event = inTransaction(() -> {
+            EntityEvent ev = change.get();
+            mongoOps.insert(OutboxEvent.builder()
+                    .topic(EntityProducer.TOPIC)
+                    .event(ev)
+                    .createdAt(Instant.now())
+                    .build());
+            return ev;
+        });
+        metaWriter.saveIfAbsent(event.getEntityMetadata());
+        return event;
+    }
+
+    // concurrent transactions on the same Entity abort with a transient write conflict
+    private <T> T inTransaction(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> work.get());
+            } catch (RuntimeException ex) {
+                if (attempt >= MAX_TX_ATTEMPTS || !isTransient(ex)) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private static boolean isTransient(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof MongoException me
+                    && me.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private EntityMetadata buildMetadata(String entityId,
                                          String operation,
                                          long operationSeq,
@@ -87,7 +226,7 @@ public class KafkaSyncService {
         return EntityMetadata.builder()
                 .metaId(UUID.randomUUID().toString())
                 .entityId(entityId)
-                .approach("Kafka Sync")
+                .approach(APPROACH)
                 .operation(operation)
                 .operationSeq(operationSeq)
                 .mongoWriteMillis(mongoWriteMillis)
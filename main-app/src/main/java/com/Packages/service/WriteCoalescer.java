@@ -0,0 +1,108 @@
+package com.Packages.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Last-writer-wins coalescing of ES writes within one batch window (a poll in
+ * the batch consumer, a micro-batch in the change-stream pipeline).
+ * Operations are grouped per entity id and collapsed into the newest one by
+ * operation sequence (the Mongo version). A window that starts with a create
+ * and ends with a delete still sends its versioned delete: a replayed window
+ * (a change-stream restart from an older checkpoint, a redelivered poll, or a
+ * backfill scan that loaded the document) may hold a create ES has already
+ * applied, and dropping the whole window would orphan that document. A delete
+ * of a document ES never saw is a 404, which counts as success.
+ * When disabled every operation is its own group.
+ * <p>
+ * Metrics: {@code sync.coalesce.writes.saved} (ES writes avoided) and
+ * {@code sync.coalesce.groups.collapsed} (create→delete windows collapsed to their delete).
+ */
+@Component
+public class WriteCoalescer {
+
+    /** All operations seen for one id, and the one to send. */
+    public record Group<T>(T winner, List<T> members) { }
+
+    private final boolean enabled;
+    private final LongAdder writesSaved = new LongAdder();
+    private final LongAdder collapsedGroups = new LongAdder();
+
+    public WriteCoalescer(MeterRegistry registry,
+                          @Value("${sync.coalesce.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        FunctionCounter.builder("sync.coalesce.writes.saved", this, WriteCoalescer::getWritesSaved)
+                .register(registry);
+        FunctionCounter.builder("sync.coalesce.groups.collapsed", this, WriteCoalescer::getCollapsedGroups)
+                .register(registry);
+    }
+
+    public <T> List<Group<T>> coalesce(List<T> items,
+                                       Function<T, String> idOf,
+                                       Function<T, String> operationOf,
+                                       ToLongFunction<T> seqOf) {
+        if (!enabled) {
+            List<Group<T>> groups = new ArrayList<>(items.size());
+            for (T item : items) {
+                groups.add(new Group<>(item, List.of(item)));
+            }
+            return groups;
+        }
+        Map<String, List<T>> byId = new LinkedHashMap<>();
+        for (T item : items) {
+            byId.computeIfAbsent(idOf.apply(item), k -> new ArrayList<>()).add(item);
+        }
+        List<Group<T>> groups = new ArrayList<>(byId.size());
+        for (List<T> members : byId.values()) {
+            T winner = newest(members, operationOf, seqOf);
+            boolean collapsed = members.size() > 1
+                    && "create".equals(operationOf.apply(members.get(0)))
+                    && "delete".equals(operationOf.apply(winner));
+            if (collapsed) {
+                collapsedGroups.increment();
+            }
+            writesSaved.add(members.size() - 1);
+            groups.add(new Group<>(winner, members));
+        }
+        return groups;
+    }
+
+    // arrival order is authoritative, except that a replayed older version never wins;
+    // a create after a delete starts a new lifecycle and always wins
+    private <T> T newest(List<T> members, Function<T, String> operationOf, ToLongFunction<T> seqOf) {
+        T winner = members.get(0);
+        for (int i = 1; i < members.size(); i++) {
+            T item = members.get(i);
+            boolean recreate = "create".equals(operationOf.apply(item))
+                    && "delete".equals(operationOf.apply(winner));
+            if (recreate || seqOf.applyAsLong(item) >= seqOf.applyAsLong(winner)) {
+                winner = item;
+            }
+        }
+        return winner;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** ES writes avoided so far because an operation was superseded. */
+    public long getWritesSaved() {
+        return writesSaved.sum();
+    }
+
+    /** Create→…→delete windows that were sent as their delete alone. */
+    public long getCollapsedGroups() {
+        return collapsedGroups.sum();
+    }
+}
@@ -0,0 +1,282 @@
+package com.Packages.verify;
+
+import com.Packages.cache.EntityCache;
+import com.Packages.kafka.EntityProducer;
+import com.Packages.model.Entity;
+import com.Packages.model.EntityEvent;
+import com.Packages.model.EntityMetadata;
+import com.Packages.repository.EntityMongoRepository;
+import com.Packages.repository.MetadataWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the Entity collection and the entity index agree.
+ * <p>
+ * The id space is split into ranges that are scanned in parallel. Within a
+ * range both sides are streamed in id order and merge-joined on id+version, so
+ * memory stays bounded by one page per side and range. With {@code recheck},
+ * each mismatch is read again by id on both sides before it is reported, which
+ * filters out writes that were still in flight during the scan. With
+ * {@code repair}, each reported mismatch is fixed by publishing the current Mongo
+ * state (or a delete) to entity113, where the Kafka consumer applies it. ES writes
+ * are versioned, so an ES copy with a higher version than Mongo's (a re-created id,
+ * or a document indexed before versioning) would reject that event; the Mongo
+ * version is first raised above the ES one, which keeps versions monotonic.
+ * <p>
+ * Jobs run one at a time, in the order they were started.
+ */
+@Service
+public class ConsistencyVerifier {
+    private static final Logger log = LoggerFactory.getLogger(ConsistencyVerifier.class);
+    private static final String APPROACH = "Verifier Repair";
+
+    private final EntityRangeScanner scanner;
+    private final EntityMongoRepository mongoRepo;
+    private final EntityProducer producer;
+    private final MetadataWriter metaWriter;
+    private final EntityCache cache;
+    private final int samplesPerRange;
+    private final int maxReported;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+    private final ExecutorService rangeWorkers;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public ConsistencyVerifier(EntityRangeScanner scanner,
+                               EntityMongoRepository mongoRepo,
+                               EntityProducer producer,
+                               MetadataWriter metaWriter,
+                               EntityCache cache,
+                               @Value("${verify.parallelism:4}") int parallelism,
+                               @Value("${verify.samples-per-range:32}") int samplesPerRange,
+                               @Value("${verify.max-reported:1000}") int maxReported) {
+        this.scanner = scanner;
+        this.mongoRepo = mongoRepo;
+        this.producer = producer;
+        this.metaWriter = metaWriter;
+        this.cache = cache;
+        this.samplesPerRange = samplesPerRange;
+        this.maxReported = maxReported;
+        this.rangeWorkers = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    void stop() {
+        coordinator.shutdownNow();
+        rangeWorkers.shutdownNow();
+    }
+
+    public VerificationReport start(int ranges, boolean recheck, boolean repair) {
+        Job job = new Job(UUID.randomUUID().toString(), recheck, repair);
+        jobs.put(job.id, job);
+        coordinator.execute(() -> run(job, Math.max(1, ranges)));
+        return job.report();
+    }
+
+    public Optional<VerificationReport> report(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::report);
+    }
+
+    private void run(Job job, int ranges) {
+        String pitId = null;
+        try {
+            pitId = scanner.openPit();
+            List<IdRange> split = scanner.split(ranges, samplesPerRange);
+            job.ranges = split.size();
+            String pit = pitId;
+            List<CompletableFuture<Void>> pending = new ArrayList<>(split.size());
+            for (IdRange range : split) {
+                pending.add(CompletableFuture.runAsync(() -> verifyRange(job, pit, range), rangeWorkers));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+            job.status = VerificationReport.Status.COMPLETED;
+        } catch (Exception e) {
+            log.error("Verification {} failed", job.id, e);
+            job.error = e.getMessage();
+            job.status = VerificationReport.Status.FAILED;
+        } finally {
+            job.finishedAt = Instant.now();
+            if (pitId != null) {
+                try {
+                    scanner.closePit(pitId);
+                } catch (Exception e) {
+                    log.warn("Could not close point in time for verification {}", job.id, e);
+                }
+            }
+        }
+        log.info("Verification {} {}: {} matched, {} missing, {} extra, {} stale, {} settled",
+                job.id, job.status, job.matched.sum(), job.missing.sum(), job.extra.sum(),
+                job.stale.sum(), job.settled.sum());
+    }
+
+    private void verifyRange(Job job, String pitId, IdRange range) {
+        try (Stream<Fingerprint> mongoSide = scanner.mongo(range)) {
+            Iterator<Fingerprint> mongo = mongoSide.iterator();
+            Iterator<Fingerprint> es = scanner.elastic(pitId, range);
+            Fingerprint m = mongo.hasNext() ? mongo.next() : null;
+            Fingerprint e = es.hasNext() ? es.next() : null;
+            while (m != null || e != null) {
+                int cmp = m == null ? 1 : e == null ? -1 : EntityRangeScanner.compareIds(m.id(), e.id());
+                if (cmp == 0) {
+                    job.mongoScanned.increment();
+                    job.esScanned.increment();
+                    if (Objects.equals(m.version(), e.version())) {
+                        job.matched.increment();
+                    } else {
+                        mismatch(job, m.id(), m, e);
+                    }
+                    m = mongo.hasNext() ? mongo.next() : null;
+                    e = es.hasNext() ? es.next() : null;
+                } else if (cmp < 0) {
+                    job.mongoScanned.increment();
+                    mismatch(job, m.id(), m, null);
+                    m = mongo.hasNext() ? mongo.next() : null;
+                } else {
+                    job.esScanned.increment();
+                    mismatch(job, e.id(), null, e);
+                    e = es.hasNext() ? es.next() : null;
+                }
+            }
+        }
+        job.rangesDone.incrementAndGet();
+    }
+
+    private void mismatch(Job job, String id, Fingerprint mongo, Fingerprint es) {
+        if (job.recheck) {
+            try {
+                mongo = scanner.mongoById(id);
+                es = scanner.elasticById(id);
+            } catch (Exception ex) {
+                log.warn("Recheck of {} failed, reporting the scanned state: {}", id, ex.getMessage());
+            }
+            boolean bothGone = mongo == null && es == null;
+            if (bothGone || (mongo != null && es != null && Objects.equals(mongo.version(), es.version()))) {
+                job.settled.increment();
+                return;
+            }
+        }
+        Mismatch.Kind kind = mongo == null ? Mismatch.Kind.EXTRA
+                : es == null ? Mismatch.Kind.MISSING
+                : Mismatch.Kind.STALE;
+        switch (kind) {
+            case MISSING -> job.missing.increment();
+            case EXTRA -> job.extra.increment();
+            case STALE -> job.stale.increment();
+        }
+        job.record(new Mismatch(kind, id,
+                mongo != null ? mongo.version() : null,
+                es != null ? es.version() : null), maxReported);
+        if (job.repair) {
+            repair(job, kind, id, es);
+        }
+    }
+
+    private void repair(Job job, Mismatch.Kind kind, String id, Fingerprint es) {
+        Entity current = kind == Mismatch.Kind.EXTRA ? null : mongoRepo.getEntity(id).orElse(null);
+        if (current != null && es != null && es.version() != null
+                && (current.getVersion() == null || current.getVersion() <= es.version())) {
+            current = mongoRepo.raiseVersion(id, es.version() + 1);
+            cache.written(current);
+        }
+        String operation = current == null ? "delete" : "update";
+        // a delete carries the scanned ES version + 1, so it cannot remove a document
+        // that was re-created and synced after the scan
+        Long seq = current != null ? current.getVersion()
+                : es != null && es.version() != null ? es.version() + 1 : null;
+        EntityMetadata meta = EntityMetadata.builder()
+                .metaId(UUID.randomUUID().toString())
+                .entityId(id)
+                .approach(APPROACH)
+                .operation(operation)
+                .operationSeq(seq)
+                .mongoWriteMillis(System.currentTimeMillis())
+                .syncAttempt(0)
+                .mongoStatus("success")
+                .esStatus("pending")
+                .build();
+        metaWriter.saveIfAbsent(meta);
+        producer.sendToKafka(EntityEvent.builder()
+                .entity(current != null ? current : Entity.builder().id(id).build())
+                .operation(operation)
+                .id(id)
+                .index(EntityRangeScanner.INDEX)
+                .entityMetadata(meta)
+                .build());
+        job.repairsSent.increment();
+    }
+
+    private static final class Job {
+        final String id;
+        final boolean recheck;
+        final boolean repair;
+        final Instant startedAt = Instant.now();
+        final AtomicInteger rangesDone = new AtomicInteger();
+        final LongAdder mongoScanned = new LongAdder();
+        final LongAdder esScanned = new LongAdder();
+        final LongAdder matched = new LongAdder();
+        final LongAdder missing = new LongAdder();
+        final LongAdder extra = new LongAdder();
+        final LongAdder stale = new LongAdder();
+        final LongAdder settled = new LongAdder();
+        final LongAdder repairsSent = new LongAdder();
+        final List<Mismatch> mismatches = new ArrayList<>();
+        volatile int ranges;
+        volatile VerificationReport.Status status = VerificationReport.Status.RUNNING;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(String id, boolean recheck, boolean repair) {
+            this.id = id;
+            this.recheck = recheck;
+            this.repair = repair;
+        }
+
+        synchronized void record(Mismatch mismatch, int max) {
+            if (mismatches.size() < max) {
+                mismatches.add(mismatch);
+            }
+        }
+
+        synchronized VerificationReport report() {
+            return VerificationReport.builder()
+                    .jobId(id)
+                    .status(status)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .recheck(recheck)
+                    .repair(repair)
+                    .ranges(ranges)
+                    .rangesDone(rangesDone.get())
+                    .mongoScanned(mongoScanned.sum())
+                    .esScanned(esScanned.sum())
+                    .matched(matched.sum())
+                    .missing(missing.sum())
+                    .extra(extra.sum())
+                    .stale(stale.sum())
+                    .settled(settled.sum())
+                    .repairsSent(repairsSent.sum())
+                    .mismatches(List.copyOf(mismatches))
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.Packages.verify;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Streams id+version fingerprints of the Entity collection and the entity index,
+ * one {@link IdRange} at a time and both in the same id order, so the two sides
+ * can be merge-joined without holding either in memory. The ES side pages with
+ * search_after over a point in time, sorted on {@code id.keyword}.
+ */
+@Component
+public class EntityRangeScanner {
+    static final String INDEX = "entity";
+    private static final String COLLECTION = "Entity";
+    private static final String ID_FIELD = "id.keyword";
+    private static final String HEX24 = "[0-9a-f]{24}";
+    private static final int BSON_STRING = 2;
+    private static final int BSON_OBJECT_ID = 7;
+
+    private final MongoOperations mongoOps;
+    private final ElasticsearchClient client;
+    private final int pageSize;
+    private final String keepAlive;
+
+    public EntityRangeScanner(MongoOperations mongoOps,
+                              ElasticsearchClient client,
+                              @Value("${verify.page-size:1000}") int pageSize,
+                              @Value("${verify.pit-keep-alive:5m}") String keepAlive) {
+        this.mongoOps = mongoOps;
+        this.client = client;
+        this.pageSize = pageSize;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Mongo sorts strings and Lucene sorts keywords by UTF-8 bytes, which is
+     * code point order; String.compareTo (UTF-16 units) differs above U+FFFF.
+     */
+    public static int compareIds(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * Splits the id space into about {@code ranges} ranges of similar size, from a
+     * random sample of {@code samplesPerRange} ids per range. Each id family gets at
+     * least one (possibly empty) range, so ids missed by the sample are still scanned.
+     */
+    public List<IdRange> split(int ranges, int samplesPerRange) {
+        List<String> strings = new ArrayList<>();
+        List<String> objectIds = new ArrayList<>();
+        Aggregation sample = Aggregation.newAggregation(
+                Aggregation.sample((long) ranges * samplesPerRange),
+                Aggregation.project("_id"));
+        for (Document doc : mongoOps.aggregate(sample, COLLECTION, Document.class)) {
+            Object id = doc.get("_id");
+            if (id instanceof ObjectId oid) {
+                objectIds.add(oid.toHexString());
+            } else if (id instanceof String s) {
+                strings.add(s);
+            }
+        }
+        int total = strings.size() + objectIds.size();
+        List<IdRange> result = new ArrayList<>();
+        result.addAll(split(false, strings, share(ranges, strings.size(), total)));
+        result.addAll(split(true, objectIds, share(ranges, objectIds.size(), total)));
+        return result;
+    }
+
+    private int share(int ranges, int count, int total) {
+        return total == 0 ? 1 : Math.max(1, Math.round((float) ranges * count / total));
+    }
+
+    private List<IdRange> split(boolean objectIds, List<String> sample, int ranges) {
+        sample.sort(EntityRangeScanner::compareIds);
+        List<IdRange> result = new ArrayList<>(ranges);
+        String from = null;
+        for (int r = 1; r < ranges && !sample.isEmpty(); r++) {
+            String to = sample.get(r * sample.size() / ranges);
+            if (from == null || compareIds(to, from) > 0) {
+                result.add(new IdRange(objectIds, from, to));
+                from = to;
+            }
+        }
+        result.add(new IdRange(objectIds, from, null));
+        return result;
+    }
+
+    /** Mongo filter for a range; a non-null {@code after} replaces the lower bound, exclusively. */
+    public Criteria criteria(IdRange range, String after) {
+        Criteria c = Criteria.where("_id").type(range.objectIds() ? BSON_OBJECT_ID : BSON_STRING);
+        if (after != null) {
+            c = c.gt(bound(range, after));
+        } else if (range.from() != null) {
+            c = c.gte(bound(range, range.from()));
+        }
+        if (range.to() != null) {
+            c = c.lt(bound(range, range.to()));
+        }
+        return c;
+    }
+
+    /** Mongo side of a range, sorted by _id; the caller must close the stream. */
+    public Stream<Fingerprint> mongo(IdRange range) {
+        org.springframework.data.mongodb.core.query.Query q =
+                new org.springframework.data.mongodb.core.query.Query(criteria(range, null))
+                        .with(Sort.by("_id"))
+                        .cursorBatchSize(pageSize);
+        q.fields().include("_id", "version");
+        return mongoOps.stream(q, Document.class, COLLECTION).map(this::toFingerprint);
+    }
+
+    private Object bound(IdRange range, String value) {
+        return range.objectIds() ? new ObjectId(value) : value;
+    }
+
+    private Fingerprint toFingerprint(Document doc) {
+        Object id = doc.get("_id");
+        Number version = doc.get("version", Number.class);
+        return new Fingerprint(id instanceof ObjectId oid ? oid.toHexString() : String.valueOf(id),
+                version == null ? null : version.longValue());
+    }
+
+    public String openPit() throws IOException {
+        return client.openPointInTime(p -> p.index(INDEX).keepAlive(k -> k.time(keepAlive))).id();
+    }
+
+    public void closePit(String pitId) throws IOException {
+        client.closePointInTime(c -> c.id(pitId));
+    }
+
+    /** ES side of a range, fetched lazily one search_after page at a time. */
+    public Iterator<Fingerprint> elastic(String pitId, IdRange range) {
+        Query query = rangeQuery(range);
+        return new Iterator<>() {
+            private List<Hit<Fingerprint>> page = List.of();
+            private int pos;
+            private List<FieldValue> after;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (pos < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                page = fetch(pitId, query, after);
+                pos = 0;
+                exhausted = page.size() < pageSize;
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).sort();
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public Fingerprint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Hit<Fingerprint> hit = page.get(pos++);
+                Long version = hit.source() != null ? hit.source().version() : null;
+                return new Fingerprint(hit.id(), version);
+            }
+        };
+    }
+
+    private List<Hit<Fingerprint>> fetch(String pitId, Query query, List<FieldValue> after) {
+        try {
+            SearchResponse<Fingerprint> resp = client.search(s -> {
+                s.pit(p -> p.id(pitId).keepAlive(k -> k.time(keepAlive)))
+                        .size(pageSize)
+                        .trackTotalHits(t -> t.enabled(false))
+                        .query(query)
+                        .sort(o -> o.field(f -> f.field(ID_FIELD).order(SortOrder.Asc)))
+                        .source(src -> src.filter(f -> f.includes("version")));
+                if (after != null) {
+                    s.searchAfter(after);
+                }
+                return s;
+            }, Fingerprint.class);
+            return resp.hits().hits();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query rangeQuery(IdRange range) {
+        Query hex = Query.of(q -> q.regexp(r -> r.field(ID_FIELD).value(HEX24)));
+        Query bounds = Query.of(q -> q.range(r -> {
+            r.field(ID_FIELD);
+            if (range.from() != null) {
+                r.gte(JsonData.of(range.from()));
+            }
+            if (range.to() != null) {
+                r.lt(JsonData.of(range.to()));
+            }
+            return r;
+        }));
+        return Query.of(q -> q.bool(b -> {
+            b.filter(bounds);
+            return range.objectIds() ? b.filter(hex) : b.mustNot(hex);
+        }));
+    }
+
+    /** Current Mongo version of one document, or null when it is gone. */
+    public Fingerprint mongoById(String id) {
+        org.springframework.data.mongodb.core.query.Query q =
+                new org.springframework.data.mongodb.core.query.Query(Criteria.where("_id").is(mongoId(id)));
+        q.fields().include("_id", "version");
+        Document doc = mongoOps.findOne(q, Document.class, COLLECTION);
+        return doc == null ? null : toFingerprint(doc);
+    }
+
+    /** Current ES version of one document, or null when it is gone. */
+    public Fingerprint elasticById(String id) throws IOException {
+        GetResponse<Fingerprint> resp = client.get(g -> g
+                .index(INDEX)
+                .id(id)
+                .sourceIncludes("version"), Fingerprint.class);
+        if (!resp.found()) {
+            return null;
+        }
+        return new Fingerprint(id, resp.source() != null ? resp.source().version() : null);
+    }
+
+    // same conversion Spring Data applies to String ids on write
+    private Object mongoId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,5 @@
+package com.Packages.verify;
+
+/** What the verifier compares for one document on either side: its id and version. */
+public record Fingerprint(String id, Long version) {
+}
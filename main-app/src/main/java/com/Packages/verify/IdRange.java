@@ -0,0 +1,10 @@
+package com.Packages.verify;
+
+/**
+ * A slice of the id space, {@code from} inclusive and {@code to} exclusive; a null
+ * bound is open. Ids Mongo stores as ObjectId (every 24-hex-digit id written
+ * through Spring Data) sort after all string ids in Mongo but among them in ES,
+ * so they are scanned in ranges of their own, with hex bounds.
+ */
+public record IdRange(boolean objectIds, String from, String to) {
+}
@@ -0,0 +1,13 @@
+package com.Packages.verify;
+
+public record Mismatch(Kind kind, String id, Long mongoVersion, Long esVersion) {
+
+    public enum Kind {
+        /** in Mongo, not in ES */
+        MISSING,
+        /** in ES, not in Mongo */
+        EXTRA,
+        /** in both, versions differ */
+        STALE
+    }
+}
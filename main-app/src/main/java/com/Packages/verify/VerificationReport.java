@@ -0,0 +1,34 @@
+package com.Packages.verify;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+public class VerificationReport {
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private String jobId;
+    private Status status;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private boolean recheck;
+    private boolean repair;
+    private int ranges;
+    private int rangesDone;
+    private long mongoScanned;
+    private long esScanned;
+    private long matched;
+    private long missing;
+    private long extra;
+    private long stale;
+    /** mismatches that were gone when re-read, i.e. writes still in flight during the scan */
+    private long settled;
+    private long repairsSent;
+    /** the first verify.max-reported mismatches; the counters cover all of them */
+    private List<Mismatch> mismatches;
+    private String error;
+}
@@ -0,0 +1,59 @@
+package com.Packages.cache;
+
+import com.Packages.model.Entity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCacheTest {
+
+    @Test
+    void eventualDoesNotCacheAReadOlderThanTheLastWrite() {
+        EntityCache cache = cache("eventual");
+        cache.loaded(entity(1));
+
+        cache.written(entity(2));
+        cache.loaded(entity(1));
+
+        assertThat(cache.get("a").hit()).isFalse();
+    }
+
+    @Test
+    void eventualCachesTheReadOnceEsHasTheWrite() {
+        EntityCache cache = cache("eventual");
+        cache.written(entity(2));
+
+        cache.loaded(entity(2));
+
+        assertThat(cache.get("a").entity().getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void eventualDoesNotCacheTheDeletedVersion() {
+        EntityCache cache = cache("eventual");
+        cache.deleted("a", 2);
+
+        cache.loaded(entity(1));
+
+        assertThat(cache.get("a").hit()).isFalse();
+    }
+
+    @Test
+    void readYourWritesServesTheWriteBeforeEsHasIt() {
+        EntityCache cache = cache("read-your-writes");
+        cache.written(entity(2));
+
+        cache.loaded(entity(1));
+
+        assertThat(cache.get("a").entity().getVersion()).isEqualTo(2L);
+    }
+
+    private static EntityCache cache(String consistency) {
+        return new EntityCache(new SimpleMeterRegistry(), true, 100, 60_000, consistency);
+    }
+
+    private static Entity entity(long version) {
+        return new Entity("a", "name-" + version, null, null, version);
+    }
+}
@@ -0,0 +1,118 @@
+package com.Packages.kafka;
+
+import com.Packages.model.Entity;
+import com.Packages.model.EntityEvent;
+import com.Packages.model.EntityMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntityEventCodecTest {
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000);
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2024, 5, 2, 11, 0, 0, 456_000_000);
+
+    @Test
+    void roundTripsAFullEvent() {
+        EntityEvent event = event("update", "Kafka Sync", "failure", CREATED, MODIFIED);
+
+        EntityEvent decoded = EntityEventCodec.decode(EntityEventCodec.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsValuesOutsideTheCodeTablesAndNulls() {
+        EntityEvent event = event("upsert", "Verifier Repair", "queued", null, null);
+        event.getEntityMetadata().setEsSyncMillis(null);
+        event.getEntityMetadata().setDlqReason(null);
+        event.getEntity().setName(null);
+
+        EntityEvent decoded = EntityEventCodec.decode(EntityEventCodec.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsAnEventWithoutEntityOrMetadata() {
+        EntityEvent event = EntityEvent.builder().operation("delete").id("42").index("entity").build();
+
+        assertThat(EntityEventCodec.decode(EntityEventCodec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void truncatesTimestampsToMillis() {
+        LocalDateTime fine = CREATED.plusNanos(789_321);
+        EntityEvent event = event("create", "Direct Data Transfer", "pending", fine, fine);
+
+        Entity decoded = EntityEventCodec.decode(EntityEventCodec.encode(event)).getEntity();
+
+        assertThat(decoded.getCreateTime()).isEqualTo(fine.truncatedTo(ChronoUnit.MILLIS));
+        assertThat(decoded.getModifiedTime()).isEqualTo(fine.truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    @Test
+    void rejectsAnUnknownSchemaVersion() {
+        byte[] data = EntityEventCodec.encode(event("create", "Kafka Sync", "pending", CREATED, MODIFIED));
+        data[1] = (byte) (EntityEventCodec.SCHEMA_VERSION + 1);
+
+        assertThatThrownBy(() -> EntityEventCodec.decode(data))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("schema version");
+    }
+
+    @Test
+    void deserializerReadsBothWireFormats() {
+        EntityEvent event = event("create", "Hybrid Sync", "success", CREATED, MODIFIED);
+        try (EntityEventDeserializer deserializer = new EntityEventDeserializer();
+             JsonSerializer<EntityEvent> json = new JsonSerializer<>()) {
+            deserializer.configure(Map.of(
+                    "spring.json.value.default.type", EntityEvent.class.getName(),
+                    "spring.json.trusted.packages", "*"), false);
+
+            byte[] binary = new EntityEventSerializer().serialize("entity113", event);
+            byte[] text = json.serialize("entity113", event);
+
+            assertThat(EntityEventCodec.isBinary(text)).isFalse();
+            assertThat(deserializer.deserialize("entity113", binary)).isEqualTo(event);
+            assertThat(deserializer.deserialize("entity113", text)).isEqualTo(event);
+        }
+    }
+
+    private static EntityEvent event(String operation, String approach, String esStatus,
+                                     LocalDateTime created, LocalDateTime modified) {
+        Entity entity = Entity.builder()
+                .id("65f0c0ffee00000000000001")
+                .name("name with ünïcode 🚀")
+                .createTime(created)
+                .modifiedTime(modified)
+                .version(7L)
+                .build();
+        EntityMetadata meta = EntityMetadata.builder()
+                .metaId("meta-1")
+                .entityId(entity.getId())
+                .approach(approach)
+                .operation(operation)
+                .operationSeq(7L)
+                .mongoWriteMillis(1_714_558_530_123L)
+                .esSyncMillis(1_714_558_530_456L)
+                .firstFailureTime(-1L)
+                .syncAttempt(3)
+                .mongoStatus("success")
+                .esStatus(esStatus)
+                .dlqReason("version_conflict_engine_exception")
+                .build();
+        return EntityEvent.builder()
+                .entity(entity)
+                .operation(operation)
+                .id(entity.getId())
+                .index("entity")
+                .entityMetadata(meta)
+                .build();
+    }
+}
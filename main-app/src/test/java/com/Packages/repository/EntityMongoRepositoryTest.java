@@ -0,0 +1,117 @@
+package com.Packages.repository;
+
+import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkChange;
+import com.Packages.repositoryinterface.MongoRepositoryInterface;
+import com.mongodb.bulk.BulkWriteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EntityMongoRepositoryTest {
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    private MongoOperations mongoOps;
+    private BulkWriteResult bulkResult;
+    private EntityMongoRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        mongoOps = mock(MongoOperations.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        bulkResult = mock(BulkWriteResult.class);
+        when(mongoOps.bulkOps(any(BulkOperations.BulkMode.class), eq(Entity.class))).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(bulkResult);
+        repo = new EntityMongoRepository(mock(MongoRepositoryInterface.class), mongoOps);
+    }
+
+    @Test
+    void updatesThatAllMatchAreNotReadAgain() {
+        when(mongoOps.find(any(Query.class), eq(Entity.class))).thenReturn(List.of(stored("a", "old", 3)));
+        when(bulkResult.getMatchedCount()).thenReturn(1);
+
+        EntityBulkChange update = change("update", "a", "new");
+        repo.bulkApply(List.of(update));
+
+        assertThat(update.getStatus()).isEqualTo(200);
+        assertThat(update.getEntity().getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void updateOvertakenByAConcurrentWriteWithTheSameVersionIsLost() {
+        EntityBulkChange won = change("update", "a", "mine");
+        EntityBulkChange lost = change("update", "b", "mine");
+        when(mongoOps.find(any(Query.class), eq(Entity.class)))
+                .thenReturn(List.of(stored("a", "old", 3), stored("b", "old", 3)))
+                // re-read: "a" carries this batch's values, "b" the concurrent writer's at the same version
+                .thenAnswer(inv -> List.of(
+                        written(won),
+                        new Entity("b", "theirs", CREATED, LocalDateTime.now().plusSeconds(1), 4L)));
+        when(bulkResult.getMatchedCount()).thenReturn(1);
+
+        repo.bulkApply(List.of(won, lost));
+
+        assertThat(won.getStatus()).isEqualTo(200);
+        assertThat(lost.getStatus()).isEqualTo(409);
+    }
+
+    @Test
+    void deleteThatFindsTheDocumentAlreadyGoneIsLost() {
+        when(mongoOps.find(any(Query.class), eq(Entity.class)))
+                .thenReturn(List.of(stored("a", "x", 2), stored("b", "y", 5)));
+        Entity removed = stored("a", "x", 2);
+        when(mongoOps.findAndRemove(any(Query.class), eq(Entity.class)))
+                .thenReturn(removed)
+                // a concurrent delete removed "b" between the read and this batch's delete
+                .thenReturn(null);
+
+        EntityBulkChange won = change("delete", "a", null);
+        EntityBulkChange lost = change("delete", "b", null);
+        repo.bulkApply(List.of(won, lost));
+
+        assertThat(won.getStatus()).isEqualTo(200);
+        assertThat(won.operationSeq()).isEqualTo(3);
+        assertThat(lost.getStatus()).isEqualTo(409);
+    }
+
+    @Test
+    void missingIdsAndDuplicatesFailBeforeTheWrite() {
+        when(mongoOps.find(any(Query.class), eq(Entity.class))).thenReturn(List.of());
+
+        EntityBulkChange missing = change("update", "a", "n");
+        EntityBulkChange duplicate = change("delete", "a", null);
+        EntityBulkChange unknown = change("upsert", "c", "n");
+        repo.bulkApply(List.of(missing, duplicate, unknown));
+
+        assertThat(missing.getStatus()).isEqualTo(404);
+        assertThat(duplicate.getStatus()).isEqualTo(400);
+        assertThat(unknown.getStatus()).isEqualTo(400);
+    }
+
+    private static EntityBulkChange change(String operation, String id, String name) {
+        return EntityBulkChange.builder().operation(operation).id(id).name(name).build();
+    }
+
+    private static Entity stored(String id, String name, long version) {
+        return new Entity(id, name, CREATED, CREATED, version);
+    }
+
+    // the document as Mongo returns it after this batch's update: dates to the millisecond
+    private static Entity written(EntityBulkChange c) {
+        Entity e = c.getEntity();
+        return new Entity(e.getId(), e.getName(), e.getCreateTime(),
+                e.getModifiedTime().truncatedTo(ChronoUnit.MILLIS), e.getVersion());
+    }
+}
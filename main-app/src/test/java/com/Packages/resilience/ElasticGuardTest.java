@@ -0,0 +1,119 @@
+package com.Packages.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ElasticGuardTest {
+
+    @Test
+    void opensAtTheFailureRateAndFailsFast() throws IOException {
+        ElasticGuard guard = breaker(1000);
+
+        failCalls(guard, 4);
+
+        assertThat(guard.getState()).isEqualTo(ElasticGuard.State.OPEN);
+        assertThatThrownBy(() -> guard.call(() -> "never"))
+                .isInstanceOf(ElasticUnavailableException.class);
+    }
+
+    @Test
+    void halfOpenTrialsCloseTheCircuit() throws Exception {
+        ElasticGuard guard = breaker(20);
+        failCalls(guard, 4);
+
+        Thread.sleep(40);
+        assertThat(guard.getState()).isEqualTo(ElasticGuard.State.HALF_OPEN);
+        guard.call(() -> "ok");
+        guard.call(() -> "ok");
+
+        assertThat(guard.getState()).isEqualTo(ElasticGuard.State.CLOSED);
+        assertThat(guard.getFailureRate()).isZero();
+    }
+
+    @Test
+    void aFailedTrialReopensTheCircuit() throws Exception {
+        ElasticGuard guard = breaker(20);
+        failCalls(guard, 4);
+
+        Thread.sleep(40);
+        guard.call(() -> "ok", r -> true);
+
+        assertThat(guard.getState()).isEqualTo(ElasticGuard.State.OPEN);
+    }
+
+    @Test
+    void limitHalvesOnOverloadAndGrowsBackAdditively() throws IOException {
+        ElasticGuard guard = limiter(10_000);
+
+        guard.call(() -> "busy", r -> true);
+        assertThat(guard.getLimit()).isEqualTo(8);
+        guard.call(() -> "busy", r -> true);
+        assertThat(guard.getLimit()).as("at most one decrease per interval").isEqualTo(8);
+
+        for (int i = 0; i < 10; i++) {
+            guard.call(() -> "ok");
+        }
+        assertThat(guard.getLimit()).isEqualTo(9);
+    }
+
+    @Test
+    void limitNeverDropsBelowTheMinimum() throws Exception {
+        ElasticGuard guard = limiter(1);
+
+        for (int i = 0; i < 5; i++) {
+            guard.call(() -> "busy", r -> true);
+            Thread.sleep(2);
+        }
+
+        assertThat(guard.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void slowSingleCallIsOverloadButSlowBulkIsNot() throws IOException {
+        ElasticGuard guard = limiter(1);
+
+        guard.callBulk(() -> sleep(20), r -> false);
+        assertThat(guard.getLimit()).isEqualTo(16);
+
+        guard.call(() -> sleep(20));
+        assertThat(guard.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void overloadedBulkItemsStillCutTheLimit() throws IOException {
+        ElasticGuard guard = limiter(10_000);
+
+        guard.callBulk(() -> "429 items", r -> true);
+
+        assertThat(guard.getLimit()).isEqualTo(8);
+    }
+
+    // window 10, opens at 50% after 4 calls, two half-open trials
+    private static ElasticGuard breaker(long openMs) {
+        return new ElasticGuard(true, 10, 4, 0.5, openMs, 2, 16, 2, 64, 10_000, 0.5, 100);
+    }
+
+    // the breaker never opens (min-calls above any test's call count); limit starts at 16
+    private static ElasticGuard limiter(long latencyThresholdMs) {
+        return new ElasticGuard(true, 100, 100, 0.5, 1000, 2, 16, 2, 64, latencyThresholdMs, 0.5, 100);
+    }
+
+    private static void failCalls(ElasticGuard guard, int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            guard.call(() -> "error", r -> true);
+        }
+    }
+
+    private static String sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,85 @@
+package com.Packages.service;
+
+import com.Packages.dto.BulkEntityRequest;
+import com.Packages.dto.BulkEntityResult;
+import com.Packages.dto.IngestReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestServiceTest {
+    private DirectDataTransferService direct;
+    private IngestService service;
+
+    @BeforeEach
+    void setUp() {
+        direct = mock(DirectDataTransferService.class);
+        when(direct.bulk(anyList())).thenAnswer(inv -> {
+            List<BulkEntityRequest> chunk = inv.getArgument(0);
+            return chunk.stream()
+                    .map(r -> BulkEntityResult.builder().id(r.getId()).operation(r.getOperation()).status(201).build())
+                    .toList();
+        });
+        service = new IngestService(direct, mock(KafkaSyncService.class), mock(HybridSyncService.class),
+                mock(ChangeStreamService.class), new ObjectMapper(), 100, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void splitsOnEveryLineBreakStyle() throws Exception {
+        String body = create("a") + "\n" + create("b") + "\r\n" + create("c") + "\r" + create("d") + "\n\n";
+
+        IngestReport report = ingest(body, 2);
+
+        assertThat(report.getLines()).isEqualTo(5);
+        assertThat(report.getStatuses()).isEqualTo(Map.of(201, 4L));
+    }
+
+    @Test
+    void skipsAnOverlongLineAndReportsItAs400() throws Exception {
+        String longName = "x".repeat(200);
+        String body = create("a") + "\n" + create(longName) + "\n" + create("b") + "\n";
+
+        IngestReport report = ingest(body, 10);
+
+        assertThat(report.getStatuses()).isEqualTo(Map.of(201, 2L, 400, 1L));
+        assertThat(report.getErrors()).singleElement()
+                .satisfies(e -> assertThat(e.line()).isEqualTo(2));
+    }
+
+    @Test
+    void handlesLinesSpanningTheReadBuffer() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            body.append(create("n" + i)).append("\r\n");
+        }
+
+        IngestReport report = ingest(body.toString(), 100);
+
+        assertThat(report.getLines()).isEqualTo(2000);
+        assertThat(report.getStatuses()).isEqualTo(Map.of(201, 2000L));
+    }
+
+    private IngestReport ingest(String body, int chunkSize) throws Exception {
+        return service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "direct", chunkSize, 2);
+    }
+
+    private static String create(String name) {
+        return "{\"operation\":\"create\",\"name\":\"" + name + "\"}";
+    }
+}
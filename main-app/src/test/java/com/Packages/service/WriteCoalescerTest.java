@@ -0,0 +1,77 @@
+package com.Packages.service;
+
+import com.Packages.service.WriteCoalescer.Group;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteCoalescerTest {
+
+    private record Op(String id, String operation, long seq) { }
+
+    @Test
+    void newestOperationPerIdWins() {
+        WriteCoalescer coalescer = coalescer(true);
+        Op create = new Op("a", "create", 0);
+        Op update = new Op("a", "update", 1);
+        Op other = new Op("b", "update", 4);
+
+        List<Group<Op>> groups = coalesce(coalescer, create, other, update);
+
+        assertThat(groups).extracting(Group::winner).containsExactly(update, other);
+        assertThat(groups.get(0).members()).containsExactly(create, update);
+        assertThat(coalescer.getWritesSaved()).isEqualTo(1);
+    }
+
+    @Test
+    void replayedOlderVersionDoesNotWin() {
+        WriteCoalescer coalescer = coalescer(true);
+        Op newer = new Op("a", "update", 5);
+        Op replayed = new Op("a", "update", 3);
+
+        assertThat(coalesce(coalescer, newer, replayed)).extracting(Group::winner).containsExactly(newer);
+    }
+
+    @Test
+    void recreateAfterDeleteWinsDespiteLowerVersion() {
+        WriteCoalescer coalescer = coalescer(true);
+        Op delete = new Op("a", "delete", 8);
+        Op recreate = new Op("a", "create", 0);
+
+        assertThat(coalesce(coalescer, new Op("a", "update", 7), delete, recreate))
+                .extracting(Group::winner).containsExactly(recreate);
+    }
+
+    @Test
+    void createThenDeleteCollapsesToTheDelete() {
+        WriteCoalescer coalescer = coalescer(true);
+        Op delete = new Op("a", "delete", 2);
+
+        List<Group<Op>> groups = coalesce(coalescer, new Op("a", "create", 0), new Op("a", "update", 1), delete);
+
+        assertThat(groups).extracting(Group::winner).containsExactly(delete);
+        assertThat(coalescer.getCollapsedGroups()).isEqualTo(1);
+        assertThat(coalescer.getWritesSaved()).isEqualTo(2);
+    }
+
+    @Test
+    void disabledKeepsEveryOperation() {
+        WriteCoalescer coalescer = coalescer(false);
+        Op first = new Op("a", "update", 1);
+        Op second = new Op("a", "update", 2);
+
+        assertThat(coalesce(coalescer, first, second)).extracting(Group::winner).containsExactly(first, second);
+        assertThat(coalescer.getWritesSaved()).isZero();
+    }
+
+    private static WriteCoalescer coalescer(boolean enabled) {
+        return new WriteCoalescer(new SimpleMeterRegistry(), enabled);
+    }
+
+    private static List<Group<Op>> coalesce(WriteCoalescer coalescer, Op... ops) {
+        return coalescer.coalesce(List.of(ops), Op::id, Op::operation, Op::seq);
+    }
+}
@@ -0,0 +1,57 @@
+package com.packages
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+
+// Concurrency ramp used to compare platform vs virtual request threads in main-app.
+// Run it once with spring.threads.virtual.enabled=false and once with true, then
+// compare the active-users and p99 charts of the two reports.
+class VirtualThreadLoadSimulation extends Simulation {
+  val basePath   = System.getProperty("basePath", "/api/entity")
+  val peakUsers  = Integer.getInteger("peakUsers", 1000).toInt
+
+  val httpConf = http
+    .baseUrl("http://localhost:8080")
+    .contentTypeHeader("application/json")
+    .shareConnections
+    .maxConnectionsPerHost(1000)
+
+  val feeder = Iterator.continually {
+    val uuid = java.util.UUID.randomUUID().toString
+    Map("id" -> uuid, "name" -> s"Name-${uuid.take(8)}")
+  }
+
+  val scn = scenario("VirtualThread_CRUD")
+    .exitBlockOnFail {
+      feed(feeder)
+        .exec(
+          http("Create")
+            .post(s"$basePath/create")
+            .body(StringBody("""{"id":"#{id}","name":"#{name}"}""")).asJson
+            .check(status.is(201))
+        )
+        .exec(
+          http("Update")
+            .put(s"$basePath/update/#{id}")
+            .body(StringBody("""{"name":"#{name}-upd"}""")).asJson
+            .check(status.is(201))
+        )
+        .exec(
+          http("Delete")
+            .delete(s"$basePath/delete/#{id}")
+            .check(status.is(200))
+        )
+    }
+
+  setUp(
+    scn.inject(
+      rampConcurrentUsers(10).to(peakUsers).during(2.minutes),
+      constantConcurrentUsers(peakUsers).during(5.minutes)
+    )
+  ).protocols(httpConf)
+    .assertions(
+      global.failedRequests.percent.lt(1),
+      global.responseTime.percentile4.lt(1000)
+    )
+}
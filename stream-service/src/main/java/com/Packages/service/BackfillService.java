@@ -0,0 +1,406 @@
+package com.Packages.service;
+
+import com.Packages.metrics.SyncMetrics;
+import com.Packages.model.BackfillState;
+import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkOperation;
+import com.Packages.model.EntityBulkResult;
+import com.Packages.model.StreamLease;
+import com.Packages.repository.EntityElasticRepository;
+import com.Packages.repositoryinterface.BackfillStateRepository;
+import com.Packages.resilience.ElasticUnavailableException;
+import com.Packages.verify.EntityRangeScanner;
+import com.Packages.verify.IdRange;
+import com.mongodb.client.MongoClient;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Initial load of the entity index before the change stream starts.
+ * <p>
+ * The cluster time is recorded first, then the collection is split into _id
+ * ranges that are scanned in parallel and bulk-loaded into ES with refresh
+ * disabled. Once every range is done the refresh interval is restored and the
+ * change stream starts at the recorded time, so whatever changed during the
+ * scan is replayed on top of it. Progress is checkpointed per range in
+ * backfillState after every bulk request; an interrupted backfill resumes
+ * after the last loaded _id instead of starting over. Documents are written with
+ * their Mongo version as the external version, so a reload never replaces a newer
+ * version already in the index.
+ * <p>
+ * {@code stream.backfill.mode}: {@code auto} runs only when there is no resume
+ * token yet, {@code force} reloads the index on every start (one-off reindex),
+ * {@code off} never backfills. An unfinished backfill is always resumed.
+ * <p>
+ * Only one instance decides and runs the backfill at a time: it holds the
+ * {@code backfill} lease in streamLease (renewed every {@code stream.slices.renew-ms})
+ * and the others wait for it. An instance that waited while another one finished a
+ * backfill starts from that backfill instead of running its own, so
+ * {@code force} reloads the index once per deployment rather than once per instance.
+ */
+@Service
+@Profile("stream")
+public class BackfillService {
+    private static final Logger log = LoggerFactory.getLogger(BackfillService.class);
+    private static final String STATE_ID = "mongoToEsSync";
+    private static final String INDEX = "entity";
+    private static final String APPROACH = "Backfill";
+    private static final String DEFAULT_REFRESH_INTERVAL = "1s";
+    private static final String LEASE_ID = "backfill";
+
+    private final MongoClient mongoClient;
+    private final MongoOperations mongoOps;
+    private final EntityElasticRepository esRepo;
+    private final EntityRangeScanner scanner;
+    private final BackfillStateRepository stateRepo;
+    private final SyncMetrics metrics;
+    private final String mode;
+    private final int partitions;
+    private final int batchSize;
+    private final int samplesPerRange;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final long leaseMs;
+    private final long renewMs;
+    private final String owner = UUID.randomUUID().toString();
+    private final ExecutorService loaders;
+    private final ScheduledExecutorService leaseTicker = Executors.newSingleThreadScheduledExecutor();
+
+    public BackfillService(MongoClient mongoClient,
+                           MongoOperations mongoOps,
+                           EntityElasticRepository esRepo,
+                           EntityRangeScanner scanner,
+                           BackfillStateRepository stateRepo,
+                           SyncMetrics metrics,
+                           @Value("${stream.backfill.mode:auto}") String mode,
+                           @Value("${stream.backfill.parallelism:4}") int parallelism,
+                           @Value("${stream.backfill.partitions:16}") int partitions,
+                           @Value("${stream.backfill.batch-size:1000}") int batchSize,
+                           @Value("${stream.backfill.samples-per-range:32}") int samplesPerRange,
+                           @Value("${stream.backfill.max-retries:5}") int maxRetries,
+                           @Value("${stream.backfill.retry-delay-ms:1000}") long retryDelayMs,
+                           @Value("${stream.slices.lease-ms:30000}") long leaseMs,
+                           @Value("${stream.slices.renew-ms:10000}") long renewMs) {
+        this.mongoClient = mongoClient;
+        this.mongoOps = mongoOps;
+        this.esRepo = esRepo;
+        this.scanner = scanner;
+        this.stateRepo = stateRepo;
+        this.metrics = metrics;
+        this.mode = mode;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.samplesPerRange = samplesPerRange;
+        this.maxRetries = maxRetries;
+        this.retryDelayMs = retryDelayMs;
+        this.leaseMs = leaseMs;
+        this.renewMs = renewMs;
+        this.loaders = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    void stop() {
+        loaders.shutdownNow();
+        leaseTicker.shutdownNow();
+    }
+
+    /**
+     * Runs or resumes the backfill if one is due and blocks until it is done,
+     * waiting first for any other instance that holds the backfill lease.
+     *
+     * @param hasResumeToken checked once the lease is held, so it sees the tokens
+     *                       written by an instance that backfilled in the meantime
+     * @return the cluster time the change stream must start at, or null when no
+     * backfill was due and the stream starts from its resume token (or now)
+     */
+    public BsonTimestamp bootstrap(BooleanSupplier hasResumeToken) throws InterruptedException {
+        Instant waitingSince = null;
+        while (!acquireLease()) {
+            if (waitingSince == null) {
+                waitingSince = Instant.now();
+                log.info("Another instance holds the backfill lease, waiting for it");
+            }
+            Thread.sleep(renewMs);
+        }
+        ScheduledFuture<?> renewal = leaseTicker.scheduleWithFixedDelay(this::renewLease,
+                renewMs, renewMs, TimeUnit.MILLISECONDS);
+        try {
+            return bootstrap(hasResumeToken.getAsBoolean(), waitingSince);
+        } finally {
+            renewal.cancel(false);
+            mongoOps.remove(myLease(), StreamLease.class);
+        }
+    }
+
+    private BsonTimestamp bootstrap(boolean hasResumeToken, Instant waitingSince) throws InterruptedException {
+        BackfillState state = stateRepo.findById(STATE_ID).orElse(null);
+        boolean unfinished = state != null && "running".equals(state.getStatus());
+        if (!unfinished) {
+            if ("off".equals(mode) || ("auto".equals(mode) && hasResumeToken)) {
+                return null;
+            }
+            boolean finishedWhileWaiting = waitingSince != null && state != null
+                    && state.getFinishedAt() != null && state.getFinishedAt().isAfter(waitingSince);
+            if (state != null && ("auto".equals(mode) || finishedWhileWaiting)) {
+                return new BsonTimestamp(state.getStartAtOperationTime());
+            }
+            state = begin();
+        } else {
+            log.info("Resuming backfill started at {}", state.getStartedAt());
+        }
+        while (true) {
+            try {
+                load(state);
+                finish(state);
+                return new BsonTimestamp(state.getStartAtOperationTime());
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Backfill failed, resuming from the last checkpoint in {} ms", retryDelayMs, e);
+                Thread.sleep(retryDelayMs);
+                state = stateRepo.findById(STATE_ID).orElseThrow();
+            }
+        }
+    }
+
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query free = new Query(Criteria.where("_id").is(LEASE_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(now)));
+        try {
+            return mongoOps.findAndModify(free,
+                    new Update().set("owner", owner).set("expiresAt", now.plusMillis(leaseMs)),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    StreamLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            // held by another live instance
+            return false;
+        } catch (Exception e) {
+            log.warn("Could not check the backfill lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void renewLease() {
+        try {
+            StreamLease renewed = mongoOps.findAndModify(myLease(),
+                    new Update().set("expiresAt", Instant.now().plusMillis(leaseMs)),
+                    FindAndModifyOptions.options().returnNew(true),
+                    StreamLease.class);
+            if (renewed == null) {
+                // another instance may resume the same partitions; the writes are versioned, so only work is wasted
+                log.warn("Lost the backfill lease; another instance may resume this backfill");
+            }
+        } catch (Exception e) {
+            log.warn("Backfill lease renewal failed: {}", e.getMessage());
+        }
+    }
+
+    private Query myLease() {
+        return new Query(Criteria.where("_id").is(LEASE_ID).and("owner").is(owner));
+    }
+
+    private BackfillState begin() throws InterruptedException {
+        while (true) {
+            try {
+                // taken before the scan, so nothing written after it can be missed
+                BsonTimestamp startAt = currentClusterTime();
+                String refreshInterval = esRepo.getRefreshInterval(INDEX);
+                if ("-1".equals(refreshInterval)) {
+                    // left disabled by a backfill that died before saving its state
+                    refreshInterval = null;
+                }
+                esRepo.setRefreshInterval(INDEX, "-1");
+                List<BackfillState.Partition> ranges = new ArrayList<>();
+                for (IdRange range : scanner.split(partitions, samplesPerRange)) {
+                    ranges.add(new BackfillState.Partition(range.objectIds(), range.from(), range.to(),
+                            null, 0, 0, false));
+                }
+                BackfillState state = BackfillState.builder()
+                        .id(STATE_ID)
+                        .status("running")
+                        .startAtOperationTime(startAt.getValue())
+                        .originalRefreshInterval(refreshInterval)
+                        .partitions(ranges)
+                        .startedAt(Instant.now())
+                        .lastUpdated(Instant.now())
+                        .build();
+                stateRepo.save(state);
+                log.info("Backfill started at cluster time {} with {} partitions", startAt, ranges.size());
+                return state;
+            } catch (Exception e) {
+                log.error("Could not start backfill, retrying in {} ms", retryDelayMs, e);
+                Thread.sleep(retryDelayMs);
+            }
+        }
+    }
+
+    private void load(BackfillState state) throws InterruptedException, ExecutionException {
+        List<Future<?>> pending = new ArrayList<>();
+        List<BackfillState.Partition> ranges = state.getPartitions();
+        for (int i = 0; i < ranges.size(); i++) {
+            if (ranges.get(i).isDone()) {
+                continue;
+            }
+            int index = i;
+            BackfillState.Partition partition = ranges.get(i);
+            pending.add(loaders.submit(() -> {
+                loadPartition(index, partition);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> f : pending) {
+                f.get();
+            }
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private void loadPartition(int index, BackfillState.Partition partition) throws Exception {
+        IdRange range = new IdRange(partition.isObjectIds(), partition.getFrom(), partition.getTo());
+        Query query = new Query(scanner.criteria(range, partition.getLastId()))
+                .with(Sort.by("_id"))
+                .cursorBatchSize(batchSize);
+        List<Entity> batch = new ArrayList<>(batchSize);
+        try (Stream<Entity> entities = mongoOps.stream(query, Entity.class)) {
+            Iterator<Entity> it = entities.iterator();
+            while (it.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                batch.add(it.next());
+                if (batch.size() == batchSize) {
+                    flush(index, batch, false);
+                    batch.clear();
+                }
+            }
+        }
+        flush(index, batch, true);
+    }
+
+    private void flush(int index, List<Entity> batch, boolean last) throws Exception {
+        int failed = 0;
+        if (!batch.isEmpty()) {
+            failed = bulk(batch);
+        }
+        String prefix = "partitions." + index + ".";
+        Update update = new Update()
+                .inc(prefix + "copied", batch.size() - failed)
+                .inc(prefix + "failed", failed)
+                .set("lastUpdated", Instant.now());
+        if (!batch.isEmpty()) {
+            update.set(prefix + "lastId", batch.get(batch.size() - 1).getId());
+        }
+        if (last) {
+            update.set(prefix + "done", true);
+        }
+        mongoOps.updateFirst(new Query(Criteria.where("_id").is(STATE_ID)), update, BackfillState.class);
+    }
+
+    /** Loads one batch, retrying 429/5xx items; returns how many items were rejected for good. */
+    private int bulk(List<Entity> batch) throws Exception {
+        List<EntityBulkOperation> ops = new ArrayList<>(batch.size());
+        for (Entity entity : batch) {
+            ops.add(EntityBulkOperation.builder()
+                    .operation("create")
+                    .index(INDEX)
+                    .id(entity.getId())
+                    .entity(entity)
+                    .version(entity.getVersion())
+                    .build());
+        }
+        int attempt = 0;
+        while (true) {
+            long start = System.nanoTime();
+            List<EntityBulkResult> results;
+            try {
+                results = esRepo.bulkWrite(ops);
+                metrics.recordEsBulk(APPROACH, System.nanoTime() - start, true);
+            } catch (ElasticUnavailableException e) {
+                // circuit open: wait it out without spending an attempt
+                Thread.sleep(retryDelayMs);
+                continue;
+            } catch (IOException e) {
+                metrics.recordEsBulk(APPROACH, System.nanoTime() - start, false);
+                if (++attempt > maxRetries) {
+                    throw e;
+                }
+                Thread.sleep(retryDelayMs * attempt);
+                continue;
+            }
+            List<EntityBulkOperation> retry = new ArrayList<>();
+            int rejected = 0;
+            for (int i = 0; i < results.size(); i++) {
+                EntityBulkResult r = results.get(i);
+                if (r.isSuccess()) {
+                    continue;
+                }
+                if (r.isClientError() || attempt >= maxRetries) {
+                    log.warn("Backfill could not load {}: {} {}", r.getId(), r.getStatus(), r.getReason());
+                    rejected++;
+                } else {
+                    retry.add(ops.get(i));
+                }
+            }
+            if (retry.isEmpty()) {
+                return rejected;
+            }
+            ops = retry;
+            attempt++;
+            Thread.sleep(retryDelayMs * attempt);
+        }
+    }
+
+    private void finish(BackfillState state) throws IOException {
+        String interval = state.getOriginalRefreshInterval() != null
+                ? state.getOriginalRefreshInterval() : DEFAULT_REFRESH_INTERVAL;
+        esRepo.setRefreshInterval(INDEX, interval);
+        esRepo.refresh(INDEX);
+        BackfillState done = stateRepo.findById(STATE_ID).orElse(state);
+        done.setStatus("done");
+        done.setFinishedAt(Instant.now());
+        done.setLastUpdated(done.getFinishedAt());
+        stateRepo.save(done);
+        long copied = done.getPartitions().stream().mapToLong(BackfillState.Partition::getCopied).sum();
+        long failed = done.getPartitions().stream().mapToLong(BackfillState.Partition::getFailed).sum();
+        log.info("Backfill done: {} documents loaded, {} rejected, change stream starts at {}",
+                copied, failed, new BsonTimestamp(done.getStartAtOperationTime()));
+    }
+
+    private BsonTimestamp currentClusterTime() {
+        Document hello = mongoClient.getDatabase("admin")
+                .runCommand(new Document("hello", 1));
+        return hello.get("operationTime", BsonTimestamp.class);
+    }
+}
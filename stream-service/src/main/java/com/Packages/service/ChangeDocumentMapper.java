@@ -0,0 +1,46 @@
+package com.Packages.service;
+
+import com.Packages.model.Entity;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Maps change-stream documents of the Entity collection to {@link Entity}.
+ * Runs once per change event, so it is kept free of Spring and benchmarked
+ * in the benchmarks module.
+ */
+public final class ChangeDocumentMapper {
+
+    private ChangeDocumentMapper() {
+    }
+
+    /** Uses the post-image, or the pre-image for deletes. */
+    public static Entity toEntity(ChangeStreamDocument<Document> change) {
+        Document doc = change.getFullDocument() != null
+                ? change.getFullDocument()
+                : change.getFullDocumentBeforeChange();
+        return toEntity(doc);
+    }
+
+    public static Entity toEntity(Document doc) {
+        return Entity.builder()
+                .id(doc.getString("_id"))
+                .name(doc.getString("name"))
+                .createTime(toLDT(doc.getDate("createTime")))
+                .modifiedTime(toLDT(doc.getDate("modifiedTime")))
+                .version(doc.getLong("version"))
+                .build();
+    }
+
+    private static LocalDateTime toLDT(Date d) {
+        return d == null
+                ? null
+                : d.toInstant()
+                .atZone(ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+}
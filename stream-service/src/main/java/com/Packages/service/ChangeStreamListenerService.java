@@ -1,33 +1,53 @@
 package com.Packages.service;
 
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
-import com.Packages.model.ChangeStreamState;
+import com.Packages.metrics.SyncMetrics;
 import com.Packages.model.Entity;
+import com.Packages.model.EntityBulkOperation;
+import com.Packages.model.EntityBulkResult;
 import com.Packages.model.EntityMetadata;
 import com.Packages.repository.EntityElasticRepository;
-import com.Packages.repository.EntityMetadataRepository;
+import com.Packages.repository.MetadataWriter;
+import com.Packages.resilience.ElasticGuard;
+import com.Packages.resilience.ElasticUnavailableException;
+import com.Packages.service.WriteCoalescer.Group;
 import com.Packages.repositoryinterface.ChangeStreamStateRepository;
+import com.Packages.model.ChangeStreamState;
 import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.changestream.ChangeStreamDocument;
 import com.mongodb.client.model.changestream.FullDocument;
 import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
 import org.bson.BsonDocument;
 import org.bson.BsonTimestamp;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.time.Instant;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 @Service
 @Profile("stream")
@@ -36,76 +56,478 @@ public class ChangeStreamListenerService {
     private static final int MAX_RETRIES = 5;
     private static final String DB_NAME    = "Datasync";
     private static final String COLL_NAME  = "Entity";
+    private static final String APPROACH   = "Change Stream";
+    private static final String STATE_ID   = "mongoToEsSync";
 
     private final ScheduledExecutorService scheduler =
             Executors.newScheduledThreadPool(2);
+    private final ExecutorService                sliceThreads = Executors.newCachedThreadPool();
+    private final Map<Integer, Slice>            slices = new ConcurrentHashMap<>();
     private final MongoClient                    mongoClient;
     private final EntityElasticRepository        esRepo;
-    private final EntityMetadataRepository       metadataRepo;
+    private final MetadataWriter                 metaWriter;
+    private final WriteCoalescer                 coalescer;
+    private final SyncMetrics                    metrics;
     private final ChangeStreamStateRepository    tokenRepo;
-    private volatile BsonDocument                resumeToken;
+    private final SliceLeaseManager              leases;
+    private final int                            sliceCount;
+    private final int                            checkpointEveryEvents;
+    private final long                           checkpointIntervalMs;
+    private final boolean                        pipelineEnabled;
+    private final int                            batchSize;
+    private final long                           maxWaitMs;
+    private final ExecutorService[]              workers;
+    private final ElasticGuard                   guard;
+    private final long                           guardPollMs;
+    private final BackfillService                backfill;
+    // where slices start that have not run since the backfill; cleared per slice once started
+    private volatile BsonTimestamp               backfilledAt;
+    private final Set<Integer>                   startedSinceBackfill = ConcurrentHashMap.newKeySet();
 
     public ChangeStreamListenerService(
             MongoClient mongoClient,
+            MongoOperations mongoOps,
             EntityElasticRepository esRepo,
-            EntityMetadataRepository metadataRepo,
-            ChangeStreamStateRepository tokenRepo) {
+            MetadataWriter metaWriter,
+            WriteCoalescer coalescer,
+            SyncMetrics metrics,
+            ChangeStreamStateRepository tokenRepo,
+            ElasticGuard guard,
+            BackfillService backfill,
+            @Value("${stream.guard.poll-ms:500}") long guardPollMs,
+            @Value("${stream.slices.count:1}") int sliceCount,
+            @Value("${stream.slices.lease-ms:30000}") long leaseMs,
+            @Value("${stream.slices.renew-ms:10000}") long renewMs,
+            @Value("${stream.checkpoint.every-events:1000}") int checkpointEveryEvents,
+            @Value("${stream.checkpoint.interval-ms:1000}") long checkpointIntervalMs,
+            @Value("${stream.pipeline.enabled:false}") boolean pipelineEnabled,
+            @Value("${stream.pipeline.batch-size:500}") int batchSize,
+            @Value("${stream.pipeline.max-wait-ms:50}") long maxWaitMs,
+            @Value("${stream.pipeline.workers:4}") int workerCount) {
         this.mongoClient   = mongoClient;
         this.esRepo        = esRepo;
-        this.metadataRepo  = metadataRepo;
+        this.metaWriter    = metaWriter;
+        this.coalescer     = coalescer;
+        this.metrics       = metrics;
         this.tokenRepo     = tokenRepo;
-        this.resumeToken   = loadToken();
+        this.sliceCount    = Math.max(1, sliceCount);
+        this.leases        = new SliceLeaseManager(mongoOps, this.sliceCount, leaseMs, renewMs);
+        this.checkpointEveryEvents = checkpointEveryEvents;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        if (pipelineEnabled && (workerCount < 1 || batchSize < 1)) {
+            throw new IllegalArgumentException("stream.pipeline.workers and stream.pipeline.batch-size must be >= 1, got "
+                    + workerCount + " and " + batchSize);
+        }
+        this.pipelineEnabled = pipelineEnabled;
+        this.batchSize     = batchSize;
+        this.maxWaitMs     = maxWaitMs;
+        this.workers       = new ExecutorService[pipelineEnabled ? workerCount : 0];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = Executors.newSingleThreadExecutor();
+        }
+        this.guard         = guard;
+        this.guardPollMs   = guardPollMs;
+        this.backfill      = backfill;
     }
 
     @PostConstruct
     void start() {
-        log.info("Starting ChangeStreamListener");
-        scheduler.submit(this::listenLoop);
+        log.info("Starting ChangeStreamListener with {} slice(s)", sliceCount);
+        scheduler.submit(this::bootstrap);
+        scheduler.scheduleAtFixedRate(this::flushCheckpoints,
+                checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
     }
 
     @PreDestroy
     void stop() {
+        log.info("Checkpointing change stream on shutdown ({} events since last checkpoint)",
+                pendingReplayEvents());
+        // releases every slice, which stops its listener and checkpoints it
+        leases.stop();
         scheduler.shutdown();
+        sliceThreads.shutdownNow();
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
     }
 
-    private void listenLoop() {
+    /** Events already applied to ES that would be replayed if the process crashed now. */
+    public long pendingReplayEvents() {
+        return slices.values().stream().mapToLong(s -> s.checkpointer.pendingEvents()).sum();
+    }
+
+    private void bootstrap() {
+        try {
+            backfilledAt = backfill.bootstrap(() -> tokenRepo.count() > 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        leases.start(this::startSlice, this::releaseSlice, this::dropSlice);
+    }
+
+    private void flushCheckpoints() {
+        for (Slice slice : slices.values()) {
+            slice.checkpointer.flush();
+        }
+    }
+
+    // one slice keeps the pre-slicing state id, so existing deployments resume where they were
+    private String stateId(int slice) {
+        return sliceCount == 1 ? STATE_ID : STATE_ID + "-" + slice + "of" + sliceCount;
+    }
+
+    private void startSlice(int index) {
+        Slice slice = new Slice(index,
+                new ResumeTokenCheckpointer(tokenRepo, stateId(index), checkpointEveryEvents));
+        slices.put(index, slice);
+        slice.loop = sliceThreads.submit(() -> listenLoop(slice));
+    }
+
+    /** Handed back to another instance: stop reading, wait for in-flight work, checkpoint. */
+    private void releaseSlice(int index) {
+        Slice slice = slices.remove(index);
+        if (slice == null) {
+            return;
+        }
+        slice.running = false;
+        try {
+            slice.loop.get(maxWaitMs + guardPollMs + 5_000, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Slice {} did not stop cleanly", index, e);
+            slice.loop.cancel(true);
+        }
+        slice.checkpointer.flush();
+    }
+
+    /** Lease expired: the new owner replays from the last checkpoint, so do not write another. */
+    private void dropSlice(int index) {
+        Slice slice = slices.remove(index);
+        if (slice != null) {
+            slice.running = false;
+            slice.loop.cancel(true);
+        }
+    }
+
+    private void listenLoop(Slice slice) {
         MongoCollection<Document> coll = mongoClient
                 .getDatabase(DB_NAME)
                 .getCollection(COLL_NAME);
+        slice.checkpointer.load();
+
+        while (slice.running && !Thread.currentThread().isInterrupted()) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = watch(coll, slice).cursor()) {
+                while (slice.running && !Thread.currentThread().isInterrupted()) {
+                    if (pipelineEnabled) {
+                        pipelineStep(slice, cursor);
+                    } else {
+                        singleStep(slice, cursor);
+                    }
+                }
+            } catch (Exception e) {
+                if (!slice.running) {
+                    break;
+                }
+                // reopened from the slice's latest token
+                log.error("Change stream of slice {} failed, reopening in {} ms", slice.index, guardPollMs, e);
+                try {
+                    Thread.sleep(guardPollMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
 
-        ChangeStreamIterable<Document> stream = (resumeToken != null)
+    /**
+     * Start point of a slice: its own token; the backfill time when the slice has
+     * not run since the backfill and its token is not older; the oldest token of a
+     * previous slice layout (so re-slicing replays instead of skipping); or now.
+     */
+    private ChangeStreamIterable<Document> watch(MongoCollection<Document> coll, Slice slice) {
+        ChangeStreamIterable<Document> stream = (sliceCount == 1
                 ? coll.watch()
-                .resumeAfter(resumeToken)
-                .fullDocument(FullDocument.UPDATE_LOOKUP)
-                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
-                : coll.watch()
-                .startAtOperationTime(getCurrentTimestamp())
+                : coll.watch(List.of(sliceFilter(slice.index))))
                 .fullDocument(FullDocument.UPDATE_LOOKUP)
                 .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        if (pipelineEnabled) {
+            stream = stream.maxAwaitTime(maxWaitMs, TimeUnit.MILLISECONDS);
+        }
+        BsonDocument token = slice.checkpointer.latest();
+        Long tokenTime = slice.checkpointer.latestClusterTime();
+        BsonTimestamp startAt = backfilledAt;
+        if (startAt != null && startedSinceBackfill.add(slice.index)
+                && (token == null || tokenTime == null || tokenTime >= startAt.getValue())) {
+            return stream.startAtOperationTime(startAt);
+        }
+        if (token != null) {
+            return stream.resumeAfter(token);
+        }
+        BsonDocument previous = oldestOtherToken(stateId(slice.index));
+        if (previous != null) {
+            log.info("Slice {} has no checkpoint, resuming from the oldest previous one", slice.index);
+            return stream.resumeAfter(previous);
+        }
+        return stream.startAtOperationTime(getCurrentTimestamp());
+    }
+
+    // $toHashedIndexKey (MongoDB 7.0+) is signed, so slice n takes mod results n and -n
+    private Bson sliceFilter(int index) {
+        Document hash = new Document("$toHashedIndexKey", "$documentKey._id");
+        Document mod = new Document("$mod", List.of(hash, (long) sliceCount));
+        return Aggregates.match(new Document("$expr",
+                new Document("$in", List.of(mod, List.of((long) index, (long) -index)))));
+    }
+
+    private BsonDocument oldestOtherToken(String ownId) {
+        return tokenRepo.findAll().stream()
+                .filter(s -> s.getId().startsWith(STATE_ID) && !s.getId().equals(ownId))
+                .filter(s -> s.getResumeToken() != null)
+                .min(Comparator.comparing(ChangeStreamState::getClusterTime,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                .map(s -> BsonDocument.parse(s.getResumeToken().toJson()))
+                .orElse(null);
+    }
+
+    private void singleStep(Slice slice, MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        ChangeStreamDocument<Document> change = cursor.tryNext();
+        if (change == null) {
+            return;
+        }
+        try {
+            awaitElastic();
+            processChange(change, 0);
+        } catch (Exception e) {
+            log.error("Error processing change", e);
+        } finally {
+            slice.checkpointer.advance(change.getResumeToken(), change.getClusterTime(), 1);
+        }
+    }
+
+    private void processChange(ChangeStreamDocument<Document> change, int attempt) {
+        if (change.getOperationType() == null) return;
+
+        String op       = change.getOperationType().getValue();
+        Entity entity   = ChangeDocumentMapper.toEntity(change);
+        EntityMetadata meta = buildMetadata(op, entity, writeTimeOf(change));
+
+        try {
+            boolean applied = metrics.timeEsWrite(APPROACH, op, () -> applyOperation(op, entity, meta));
+            meta.setEsStatus("success");
+            meta.setSyncAttempt(attempt + 1);
+            meta.setEsSyncMillis(System.currentTimeMillis());
+            metrics.recordSynced(meta);
+            if (!applied) {
+                metrics.recordStale(meta);
+            }
+            if (attempt > 0) {
+                metrics.recordRetry(meta, "success");
+            }
+        } catch (Exception ex) {
+            int next = attempt + 1;
+            if (meta.getFirstFailureTime() == null) {
+                meta.setFirstFailureTime(System.currentTimeMillis());
+            }
+            handleError(ex, change, meta, next);
+        } finally {
+            metaWriter.save(meta);
+        }
+    }
 
-        stream.forEach(change -> {
+    /**
+     * Pipeline mode: drains the cursor into micro-batches, shards each batch by
+     * document _id across the worker threads (so per-document order holds) and
+     * sends every shard as one bulk request, after optional per-id coalescing.
+     * The resume token is checkpointed once the whole batch has been applied.
+     * Workers are shared by all slices; a document only ever belongs to one.
+     */
+    private void pipelineStep(Slice slice, MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        List<ChangeStreamDocument<Document>> batch = drainBatch(cursor);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            processBatch(slice, batch);
+        } catch (Exception e) {
+            log.error("Error processing change batch", e);
+        }
+    }
+
+    // stops reading the change stream while the ES circuit is open instead of burning retries;
+    // the cursor simply continues from where it stopped
+    private void awaitElastic() throws InterruptedException {
+        while (guard.isOpen()) {
+            Thread.sleep(guardPollMs);
+        }
+    }
+
+    private List<ChangeStreamDocument<Document>> drainBatch(
+            MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        ChangeStreamDocument<Document> first = cursor.tryNext();
+        if (first == null) {
+            return List.of();
+        }
+        List<ChangeStreamDocument<Document>> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        while (batch.size() < batchSize && System.currentTimeMillis() < deadline) {
+            ChangeStreamDocument<Document> next = cursor.tryNext();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void processBatch(Slice slice, List<ChangeStreamDocument<Document>> batch) throws Exception {
+        awaitElastic();
+        Map<Integer, List<ChangeStreamDocument<Document>>> shards = new LinkedHashMap<>();
+        for (ChangeStreamDocument<Document> change : batch) {
+            int shard = Math.floorMod(Objects.hashCode(change.getDocumentKey()), workers.length);
+            shards.computeIfAbsent(shard, k -> new ArrayList<>()).add(change);
+        }
+        List<Future<?>> pending = new ArrayList<>(shards.size());
+        for (Map.Entry<Integer, List<ChangeStreamDocument<Document>>> shard : shards.entrySet()) {
+            pending.add(workers[shard.getKey()].submit(() -> processShard(shard.getValue())));
+        }
+        for (Future<?> f : pending) {
+            f.get();
+        }
+        ChangeStreamDocument<Document> last = batch.get(batch.size() - 1);
+        slice.checkpointer.advance(last.getResumeToken(), last.getClusterTime(), batch.size());
+    }
+
+    private void processShard(List<ChangeStreamDocument<Document>> changes) {
+        List<ChangeStreamDocument<Document>> accepted = new ArrayList<>(changes.size());
+        List<EntityMetadata> metas = new ArrayList<>(changes.size());
+        List<EntityBulkOperation> ops = new ArrayList<>(changes.size());
+        for (ChangeStreamDocument<Document> change : changes) {
+            if (change.getOperationType() == null) continue;
+            String op = change.getOperationType().getValue();
+            String bulkOp = switch (op) {
+                case "insert"            -> "create";
+                case "update", "replace" -> "update";
+                case "delete"            -> "delete";
+                default                  -> null;
+            };
+            if (bulkOp == null) continue;
             try {
-                processChange(change, 0);
+                Entity entity = ChangeDocumentMapper.toEntity(change);
+                EntityMetadata meta = buildMetadata(op, entity, writeTimeOf(change));
+                metas.add(meta);
+                ops.add(EntityBulkOperation.builder()
+                        .operation(bulkOp)
+                        .index("entity")
+                        .id(entity.getId())
+                        .entity(entity)
+                        .version(meta.getOperationSeq())
+                        .build());
+                accepted.add(change);
             } catch (Exception e) {
                 log.error("Error processing change", e);
             }
-        });
+        }
+        if (ops.isEmpty()) return;
+
+        List<Group<Integer>> groups = coalescer.coalesce(
+                IntStream.range(0, ops.size()).boxed().toList(),
+                i -> ops.get(i).getId(),
+                i -> ops.get(i).getOperation(),
+                i -> metas.get(i).getOperationSeq());
+        List<EntityBulkOperation> winners = new ArrayList<>(groups.size());
+        for (Group<Integer> group : groups) {
+            winners.add(ops.get(group.winner()));
+        }
+
+        List<EntityBulkResult> results = null;
+        Exception failure = null;
+        while (results == null && failure == null) {
+            long start = System.nanoTime();
+            try {
+                results = esRepo.bulkWrite(winners);
+                metrics.recordEsBulk(APPROACH, System.nanoTime() - start, true);
+            } catch (ElasticUnavailableException ex) {
+                // shed by the guard: hold the shard until ES is accepting calls again
+                try {
+                    Thread.sleep(guardPollMs);
+                    awaitElastic();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    failure = ex;
+                }
+            } catch (Exception ex) {
+                metrics.recordEsBulk(APPROACH, System.nanoTime() - start, false);
+                failure = ex;
+            }
+        }
+        for (int g = 0; g < groups.size(); g++) {
+            Group<Integer> group = groups.get(g);
+            EntityBulkResult result = results != null ? results.get(g) : null;
+            for (int i : group.members()) {
+                EntityMetadata meta = metas.get(i);
+                if (result != null && result.isSuccess()) {
+                    markSynced(meta);
+                    if (result.isVersionConflict() && i == group.winner()) {
+                        metrics.recordStale(meta);
+                    }
+                } else {
+                    String reason = result != null ? result.getReason() : failure.getMessage();
+                    // only the winner is retried; superseded changes ride on its outcome
+                    boolean retryable = i == group.winner() && (result == null || !result.isClientError());
+                    handleBatchError(accepted.get(i), meta, reason, !retryable);
+                }
+                metaWriter.save(meta);
+            }
+        }
     }
 
-    private void processChange(ChangeStreamDocument<Document> change, int attempt) {
-        if (change.getOperationType() == null) return;
+    private void markSynced(EntityMetadata meta) {
+        meta.setEsStatus("success");
+        meta.setSyncAttempt(1);
+        meta.setEsSyncMillis(System.currentTimeMillis());
+        metrics.recordSynced(meta);
+    }
 
-        String op       = change.getOperationType().getValue();
-        Entity entity   = toEntity(change);
+    private void handleBatchError(ChangeStreamDocument<Document> change,
+                                  EntityMetadata meta,
+                                  String reason,
+                                  boolean clientError) {
+        int nextAttempt = 1;
+        meta.setFirstFailureTime(System.currentTimeMillis());
+        meta.setEsStatus("failure");
+        meta.setSyncAttempt(nextAttempt);
+        meta.setEsSyncMillis(null);
+        meta.setDlqReason(reason);
+        if (!clientError) {
+            scheduler.schedule(() -> processChange(change, nextAttempt),
+                    Math.min(1L << nextAttempt, 10L),
+                    TimeUnit.MILLISECONDS);
+            metrics.recordRetry(meta, "scheduled");
+        }
+    }
+
+    // the time of the Mongo write itself, so that sync.lag includes the change stream delay
+    private long writeTimeOf(ChangeStreamDocument<Document> change) {
+        if (change.getWallTime() != null) {
+            return change.getWallTime().getValue();
+        }
+        if (change.getClusterTime() != null) {
+            return change.getClusterTime().getTime() * 1000L;
+        }
+        return System.currentTimeMillis();
+    }
+
+    private EntityMetadata buildMetadata(String op, Entity entity, long mongoWriteMillis) {
         long version    = op.equals("delete") ? entity.getVersion() + 1 : entity.getVersion();
         String metaId   = entity.getId() + "-" + op + version;
-        EntityMetadata meta = EntityMetadata.builder()
+        return EntityMetadata.builder()
                 .metaId(metaId)
                 .entityId(entity.getId())
                 .approach("Change Stream")
                 .operation(op)
                 .operationSeq(version)
-                .mongoWriteMillis(System.currentTimeMillis())
+                .mongoWriteMillis(mongoWriteMillis)
                 .esSyncMillis(null)
                 .firstFailureTime(null)
                 .syncAttempt(0)
@@ -113,31 +535,18 @@ public class ChangeStreamListenerService {
                 .esStatus("pending")
                 .dlqReason(null)
                 .build();
-
-        try {
-            applyOperation(op, entity);
-            meta.setEsStatus("success");
-            meta.setSyncAttempt(attempt + 1);
-            meta.setEsSyncMillis(System.currentTimeMillis());
-            saveToken(change.getResumeToken());
-        } catch (Exception ex) {
-            int next = attempt + 1;
-            if (meta.getFirstFailureTime() == null) {
-                meta.setFirstFailureTime(System.currentTimeMillis());
-            }
-            handleError(ex, change, meta, next);
-        } finally {
-            metadataRepo.save(meta);
-        }
     }
 
-    private void applyOperation(String op, Entity entity) {
-        switch (op) {
-            case "insert"              -> esRepo.createEntity("entity", entity);
-            case "update", "replace"   -> esRepo.updateEntity("entity", entity.getId(), entity, null);
-            case "delete"              -> esRepo.deleteEntity("entity", entity.getId());
-            default                     -> {/*ignore*/}
-        }
+    // versioned, so a retry scheduled before a newer change was applied cannot overwrite it
+    private boolean applyOperation(String op, Entity entity, EntityMetadata meta) {
+        String esOp = switch (op) {
+            case "insert"            -> "create";
+            case "update", "replace" -> "update";
+            case "delete"            -> "delete";
+            default                  -> null;
+        };
+        return esOp == null
+                || esRepo.writeVersioned("entity", esOp, entity.getId(), entity, meta.getOperationSeq());
     }
 
     private void handleError(Exception ex,
@@ -154,62 +563,46 @@ public class ChangeStreamListenerService {
             meta.setDlqReason(reason);
             meta.setSyncAttempt(1);
             meta.setEsSyncMillis(null);
-            saveToken(change.getResumeToken());
+        } else if (ex instanceof ElasticUnavailableException) {
+            // not an attempt: ES was never called, try the same attempt again later
+            scheduler.schedule(() -> processChange(change, nextAttempt - 1),
+                    guardPollMs, TimeUnit.MILLISECONDS);
+            meta.setEsStatus("failure");
+            meta.setSyncAttempt(nextAttempt - 1);
+            meta.setEsSyncMillis(null);
+            meta.setDlqReason(reason);
         } else {
             if (nextAttempt < MAX_RETRIES) {
                 scheduler.schedule(() -> processChange(change, nextAttempt),
                         Math.min(1L << nextAttempt, 10L),
                         TimeUnit.MILLISECONDS);
+                metrics.recordRetry(meta, "scheduled");
+            } else {
+                metrics.recordRetry(meta, "exhausted");
             }
             meta.setEsStatus("failure");
             meta.setSyncAttempt(nextAttempt);
             meta.setEsSyncMillis(null);
             meta.setDlqReason(reason);
-            saveToken(change.getResumeToken());
         }
     }
 
-    private void saveToken(BsonDocument token) {
-        ChangeStreamState state = new ChangeStreamState();
-        state.setId("mongoToEsSync");
-        state.setResumeToken(Document.parse(token.toJson()));
-        state.setLastUpdated(Instant.now());
-        tokenRepo.save(state);
-        this.resumeToken = token;
-    }
-
-    private BsonDocument loadToken() {
-        return tokenRepo.findById("mongoToEsSync")
-                .map(ChangeStreamState::getResumeToken)
-                .map(doc -> BsonDocument.parse(doc.toJson()))
-                .orElse(null);
-    }
-
     private BsonTimestamp getCurrentTimestamp() {
         Document hello = mongoClient.getDatabase("admin")
                 .runCommand(new Document("hello", 1));
         return hello.get("operationTime", BsonTimestamp.class);
     }
 
-    private Entity toEntity(ChangeStreamDocument<Document> change) {
-        Document doc = change.getFullDocument() != null
-                ? change.getFullDocument()
-                : change.getFullDocumentBeforeChange();
-        return Entity.builder()
-                .id(doc.getString("_id"))
-                .name(doc.getString("name"))
-                .createTime(toLDT(doc.getDate("createTime")))
-                .modifiedTime(toLDT(doc.getDate("modifiedTime")))
-                .version(doc.getLong("version"))
-                .build();
-    }
+    private static final class Slice {
+        final int index;
+        final ResumeTokenCheckpointer checkpointer;
+        volatile boolean running = true;
+        volatile Future<?> loop;
 
-    private static LocalDateTime toLDT(java.util.Date d) {
-        return d == null
-                ? null
-                : d.toInstant()
-                .atZone(java.time.ZoneId.systemDefault())
-                .toLocalDateTime();
+        Slice(int index, ResumeTokenCheckpointer checkpointer) {
+            this.index = index;
+            this.checkpointer = checkpointer;
+        }
     }
 }
 
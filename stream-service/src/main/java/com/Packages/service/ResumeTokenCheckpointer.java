@@ -0,0 +1,84 @@
+package com.Packages.service;
+
+import com.Packages.model.ChangeStreamState;
+import com.Packages.repositoryinterface.ChangeStreamStateRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+
+import java.time.Instant;
+
+/**
+ * Tracks the newest fully-processed resume token and persists it to
+ * changeStreamState only every {@code everyEvents} events, on the flush
+ * interval driven by the listener, and on shutdown. Anything processed after
+ * the last persisted token is replayed after a crash (at-least-once).
+ */
+public class ResumeTokenCheckpointer {
+    private final ChangeStreamStateRepository tokenRepo;
+    private final String stateId;
+    private final int everyEvents;
+
+    private BsonDocument latest;
+    private BsonDocument persisted;
+    private Long latestClusterTime;
+    private long pendingEvents;
+
+    public ResumeTokenCheckpointer(ChangeStreamStateRepository tokenRepo,
+                                   String stateId,
+                                   int everyEvents) {
+        this.tokenRepo = tokenRepo;
+        this.stateId = stateId;
+        this.everyEvents = everyEvents;
+    }
+
+    public synchronized BsonDocument load() {
+        ChangeStreamState state = tokenRepo.findById(stateId).orElse(null);
+        persisted = state != null && state.getResumeToken() != null
+                ? BsonDocument.parse(state.getResumeToken().toJson())
+                : null;
+        latest = persisted;
+        latestClusterTime = state != null ? state.getClusterTime() : null;
+        return persisted;
+    }
+
+    /** Records that every change up to and including {@code token} has been processed. */
+    public synchronized void advance(BsonDocument token, BsonTimestamp clusterTime, int events) {
+        latest = token;
+        if (clusterTime != null) {
+            latestClusterTime = clusterTime.getValue();
+        }
+        pendingEvents += events;
+        if (pendingEvents >= everyEvents) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        if (latest == null || latest == persisted) {
+            return;
+        }
+        ChangeStreamState state = new ChangeStreamState();
+        state.setId(stateId);
+        state.setResumeToken(Document.parse(latest.toJson()));
+        state.setClusterTime(latestClusterTime);
+        state.setLastUpdated(Instant.now());
+        tokenRepo.save(state);
+        persisted = latest;
+        pendingEvents = 0;
+    }
+
+    /** Number of processed events that would be replayed if the process died now. */
+    public synchronized long pendingEvents() {
+        return pendingEvents;
+    }
+
+    public synchronized BsonDocument latest() {
+        return latest;
+    }
+
+    /** Cluster time of {@link #latest()}, or null when it is not known. */
+    public synchronized Long latestClusterTime() {
+        return latestClusterTime;
+    }
+}
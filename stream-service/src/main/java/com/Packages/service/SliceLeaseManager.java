@@ -0,0 +1,150 @@
+package com.Packages.service;
+
+import com.Packages.model.StreamLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Spreads the change-stream slices over the running stream-service instances
+ * with leases in the streamLease collection.
+ * <p>
+ * Every instance renews a heartbeat lease and the slice leases it holds each
+ * {@code renewMs}. Its fair share is ceil(slices / live instances): it takes
+ * free or expired slices up to that share and hands back the highest ones above
+ * it, so slices move to a new instance within a renewal or two and are picked up
+ * again once a dead instance's leases expire.
+ */
+public class SliceLeaseManager {
+    private static final Logger log = LoggerFactory.getLogger(SliceLeaseManager.class);
+    private static final String SLICE = "slice-";
+    private static final String INSTANCE = "instance-";
+
+    private final MongoOperations mongoOps;
+    private final int slices;
+    private final long leaseMs;
+    private final long renewMs;
+    private final String owner = UUID.randomUUID().toString();
+    private final TreeSet<Integer> owned = new TreeSet<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+
+    private IntConsumer onAssigned;
+    private IntConsumer onReleased;
+    private IntConsumer onLost;
+
+    public SliceLeaseManager(MongoOperations mongoOps, int slices, long leaseMs, long renewMs) {
+        this.mongoOps = mongoOps;
+        this.slices = slices;
+        this.leaseMs = leaseMs;
+        this.renewMs = renewMs;
+    }
+
+    /**
+     * @param onReleased called before a slice is handed back; its listener may still checkpoint
+     * @param onLost     called after the lease expired; another instance may already own the slice
+     */
+    public void start(IntConsumer onAssigned, IntConsumer onReleased, IntConsumer onLost) {
+        this.onAssigned = onAssigned;
+        this.onReleased = onReleased;
+        this.onLost = onLost;
+        ticker.scheduleWithFixedDelay(this::tick, 0, renewMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops the listeners of every held slice and releases the leases right away. */
+    public void stop() {
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(renewMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (int slice : List.copyOf(owned)) {
+                release(slice);
+            }
+            mongoOps.remove(mine(INSTANCE + owner), StreamLease.class);
+        }
+    }
+
+    public synchronized Set<Integer> owned() {
+        return Set.copyOf(owned);
+    }
+
+    private synchronized void tick() {
+        try {
+            Instant now = Instant.now();
+            Instant expiresAt = now.plusMillis(leaseMs);
+            mongoOps.upsert(new Query(Criteria.where("_id").is(INSTANCE + owner)),
+                    new Update().set("owner", owner).set("expiresAt", expiresAt),
+                    StreamLease.class);
+            long live = mongoOps.count(new Query(Criteria.where("_id").regex("^" + INSTANCE)
+                    .and("expiresAt").gt(now)), StreamLease.class);
+            int share = (int) Math.ceil((double) slices / Math.max(1, live));
+
+            for (int slice : List.copyOf(owned)) {
+                StreamLease renewed = mongoOps.findAndModify(mine(SLICE + slice),
+                        new Update().set("expiresAt", expiresAt),
+                        FindAndModifyOptions.options().returnNew(true),
+                        StreamLease.class);
+                if (renewed == null) {
+                    // expired and taken over: stop without checkpointing over the new owner
+                    log.warn("Lost the lease on change-stream slice {}", slice);
+                    owned.remove(slice);
+                    onLost.accept(slice);
+                }
+            }
+            while (owned.size() > share) {
+                release(owned.last());
+            }
+            for (int slice = 0; slice < slices && owned.size() < share; slice++) {
+                if (!owned.contains(slice) && acquire(slice, now, expiresAt)) {
+                    owned.add(slice);
+                    log.info("Acquired change-stream slice {} of {}", slice, slices);
+                    onAssigned.accept(slice);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Slice lease renewal failed", e);
+        }
+    }
+
+    private boolean acquire(int slice, Instant now, Instant expiresAt) {
+        Query free = new Query(Criteria.where("_id").is(SLICE + slice)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(now)));
+        try {
+            return mongoOps.findAndModify(free,
+                    new Update().set("owner", owner).set("expiresAt", expiresAt),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    StreamLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            // held by another live instance
+            return false;
+        }
+    }
+
+    private void release(int slice) {
+        onReleased.accept(slice);
+        owned.remove(slice);
+        mongoOps.remove(mine(SLICE + slice), StreamLease.class);
+        log.info("Released change-stream slice {}", slice);
+    }
+
+    private Query mine(String id) {
+        return new Query(Criteria.where("_id").is(id).and("owner").is(owner));
+    }
+}
@@ -0,0 +1,126 @@
+package com.Packages.service;
+
+import com.Packages.model.StreamLease;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SliceLeaseManagerTest {
+    private final Set<String> heldByOthers = ConcurrentHashMap.newKeySet();
+    private final Set<String> lostToOthers = ConcurrentHashMap.newKeySet();
+    private final List<Integer> assigned = new CopyOnWriteArrayList<>();
+    private final List<Integer> released = new CopyOnWriteArrayList<>();
+    private final List<Integer> lost = new CopyOnWriteArrayList<>();
+    private MongoOperations mongoOps;
+    private SliceLeaseManager manager;
+
+    @BeforeEach
+    void setUp() {
+        mongoOps = mock(MongoOperations.class);
+        when(mongoOps.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StreamLease.class))).thenAnswer(inv -> {
+            String id = (String) inv.getArgument(0, Query.class).getQueryObject().get("_id");
+            boolean acquire = inv.getArgument(2, FindAndModifyOptions.class).isUpsert();
+            if (acquire && heldByOthers.contains(id)) {
+                // the upsert collides with the other owner's live lease
+                throw new DuplicateKeyException(id);
+            }
+            return !acquire && lostToOthers.contains(id) ? null : new StreamLease();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.stop();
+    }
+
+    @Test
+    void takesItsFairShareOfTheSlices() throws Exception {
+        liveInstances(2L);
+        CountDownLatch done = new CountDownLatch(2);
+
+        start(4, 60_000, done, null);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(manager.owned()).containsExactlyInAnyOrder(0, 1);
+    }
+
+    @Test
+    void skipsSlicesHeldByAnotherInstance() throws Exception {
+        liveInstances(2L);
+        heldByOthers.addAll(List.of("slice-0", "slice-2"));
+        CountDownLatch done = new CountDownLatch(2);
+
+        start(4, 60_000, done, null);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(assigned).containsExactly(1, 3);
+    }
+
+    @Test
+    void handsBackTheHighestSlicesWhenAnInstanceJoins() throws Exception {
+        liveInstances(1L, 2L);
+        CountDownLatch handedBack = new CountDownLatch(2);
+
+        start(4, 20, null, handedBack);
+
+        assertThat(handedBack.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(assigned).startsWith(0, 1, 2, 3);
+        assertThat(released).containsExactly(3, 2);
+        assertThat(manager.owned()).containsExactlyInAnyOrder(0, 1);
+    }
+
+    @Test
+    void reportsASliceWhoseLeaseWasTakenOver() throws Exception {
+        liveInstances(1L);
+        lostToOthers.add("slice-1");
+        CountDownLatch done = new CountDownLatch(1);
+
+        manager = new SliceLeaseManager(mongoOps, 2, 60, 20);
+        manager.start(assigned::add, released::add, slice -> {
+            lost.add(slice);
+            done.countDown();
+        });
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(lost).first().isEqualTo(1);
+        assertThat(released).isEmpty();
+    }
+
+    private void liveInstances(Long first, Long... then) {
+        when(mongoOps.count(any(Query.class), eq(StreamLease.class))).thenReturn(first, then);
+    }
+
+    private void start(int slices, long renewMs, CountDownLatch onAssigned, CountDownLatch onReleased) {
+        manager = new SliceLeaseManager(mongoOps, slices, renewMs * 3, renewMs);
+        manager.start(slice -> {
+            assigned.add(slice);
+            if (onAssigned != null) {
+                onAssigned.countDown();
+            }
+        }, slice -> {
+            released.add(slice);
+            if (onReleased != null) {
+                onReleased.countDown();
+            }
+        }, lost::add);
+    }
+}